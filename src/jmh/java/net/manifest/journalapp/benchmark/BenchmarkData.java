@@ -0,0 +1,124 @@
+package net.manifest.journalapp.benchmark;
+
+import net.manifest.journalapp.entity.CommentBucket;
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.services.SentimentAnalysisService;
+import net.manifest.journalapp.utils.journalutils.Comment;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates realistic, reproducible inputs for the benchmarks. A fixed seed keeps every run
+ * (and every release) measuring exactly the same data, so the JSON reports can be compared.
+ */
+public final class BenchmarkData {
+
+    /** Content sizes in characters: a one-liner, a typical entry and a long 20 KB entry. */
+    public static final int SHORT_CONTENT = 120;
+    public static final int MEDIUM_CONTENT = 1_500;
+    public static final int LONG_CONTENT = 20 * 1024;
+
+    private static final List<String> FILLER = List.of(
+            "today", "i", "went", "to", "the", "office", "and", "then", "walked", "home", "with",
+            "my", "friend", "we", "talked", "about", "work", "family", "plans", "for", "weekend",
+            "it", "was", "a", "long", "day", "but", "evening", "felt", "quiet", "after", "dinner");
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Builds text of roughly the requested length, mostly filler words with about one in six
+     * words taken from the sentiment keyword lists, mixed case and punctuation included.
+     */
+    public static String content(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(length + 32);
+        while (text.length() < length) {
+            String word;
+            int pick = random.nextInt(12);
+            if (pick == 0) {
+                word = pickFrom(SentimentAnalysisService.POSITIVE_KEYWORDS, random);
+            } else if (pick == 1) {
+                word = pickFrom(SentimentAnalysisService.NEGATIVE_KEYWORDS, random);
+            } else {
+                word = pickFrom(FILLER, random);
+            }
+            text.append(random.nextInt(10) == 0 ? capitalize(word) : word);
+            int separator = random.nextInt(20);
+            text.append(separator == 0 ? ". " : separator == 1 ? ", " : separator == 2 ? "!\n" : " ");
+        }
+        return text.toString();
+    }
+
+    /**
+     * A public entry as stored today: its comments live in buckets, only their count is kept here.
+     */
+    public static JournalEntry entry(int contentLength, int commentCount, long seed) {
+        Random random = new Random(seed);
+        ObjectId userId = new ObjectId();
+        JournalEntry entry = new JournalEntry();
+        entry.setId(new ObjectId());
+        entry.setUserId(userId);
+        entry.setTitle("Entry " + seed);
+        entry.setContent(content(contentLength, seed));
+        entry.setCreatedAt(LocalDateTime.now().minusDays(random.nextInt(7)));
+        entry.setMood(Mood.values()[random.nextInt(Mood.values().length)]);
+        entry.setSentiment(Sentiment.values()[random.nextInt(Sentiment.values().length)]);
+        entry.setTags(new ArrayList<>(List.of("daily", "work")));
+        entry.setPublic(true);
+        entry.setCommentCount(commentCount);
+        return entry;
+    }
+
+    /**
+     * A full comment bucket of an entry, as one page of the comments endpoint reads it.
+     */
+    public static CommentBucket commentBucket(ObjectId journalId, long seed) {
+        Random random = new Random(seed);
+        CommentBucket bucket = new CommentBucket();
+        bucket.setId(new ObjectId());
+        bucket.setJournalId(journalId);
+        bucket.setCount(CommentBucket.BUCKET_SIZE);
+        bucket.setComments(comments(CommentBucket.BUCKET_SIZE, random));
+        bucket.setCreatedAt(LocalDateTime.now());
+        return bucket;
+    }
+
+    /**
+     * A week of entries for one user; some carry no mood or sentiment, as older entries do.
+     */
+    public static List<JournalEntry> week(int entries, long seed) {
+        Random random = new Random(seed);
+        List<JournalEntry> week = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            JournalEntry entry = new JournalEntry();
+            entry.setMood(random.nextInt(10) == 0 ? null : Mood.values()[random.nextInt(Mood.values().length)]);
+            entry.setSentiment(random.nextInt(10) == 0 ? null : Sentiment.values()[random.nextInt(Sentiment.values().length)]);
+            week.add(entry);
+        }
+        return week;
+    }
+
+    private static List<Comment> comments(int count, Random random) {
+        List<Comment> comments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            comments.add(new Comment(new ObjectId(), "user" + random.nextInt(10_000),
+                    content(40 + random.nextInt(160), random.nextLong()), LocalDateTime.now()));
+        }
+        return comments;
+    }
+
+    private static String pickFrom(List<String> words, Random random) {
+        return words.get(random.nextInt(words.size()));
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,61 @@
+package net.manifest.journalapp.benchmark;
+
+import net.manifest.journalapp.dto.journal.CommentResponseDTO;
+import net.manifest.journalapp.dto.journal.JournalResponseDTO;
+import net.manifest.journalapp.entity.CommentBucket;
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.mapper.JournalMapper;
+import net.manifest.journalapp.utils.journalutils.Comment;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JournalMapper.toResponseDTO for an entry, whose comments are stored in buckets and only
+ * counted on the entry, plus mapping one page of a comment bucket to DTOs as the comments
+ * endpoint does, for pages of 10 and 100 comments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JournalMapperBenchmark {
+
+    private JournalEntry entry;
+
+    @State(Scope.Benchmark)
+    public static class CommentPage {
+
+        @Param({"10", "100"})
+        public int pageSize;
+
+        private List<Comment> comments;
+
+        @Setup
+        public void setUp() {
+            CommentBucket bucket = BenchmarkData.commentBucket(new ObjectId(), 42);
+            comments = bucket.getComments().subList(0, pageSize);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        entry = BenchmarkData.entry(BenchmarkData.MEDIUM_CONTENT, CommentBucket.BUCKET_SIZE, 42);
+    }
+
+    @Benchmark
+    public JournalResponseDTO toResponseDTO() {
+        return JournalMapper.toResponseDTO(entry, "benchmark-user");
+    }
+
+    @Benchmark
+    public List<CommentResponseDTO> toCommentDTOs(CommentPage page) {
+        List<CommentResponseDTO> dtos = new ArrayList<>(page.comments.size());
+        for (Comment comment : page.comments) {
+            dtos.add(JournalMapper.toCommentDTO(comment));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,64 @@
+package net.manifest.journalapp.benchmark;
+
+import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.enums.Role;
+import net.manifest.journalapp.utils.JwtUtils;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtils.extractUsername and validateToken for a valid and an expired token. The expired case
+ * measures the rejection path, which parses and verifies the signature before failing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilsBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-hs256-signing";
+
+    @Param({"VALID", "EXPIRED"})
+    public String tokenState;
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(new ObjectId());
+        user.setUsername("benchmark-user");
+        user.setRoles(Set.of(Role.ROLE_USER));
+
+        // The issuing instance uses a negative lifetime to mint tokens that are already expired.
+        JwtUtils issuer = jwtUtils(tokenState.equals("EXPIRED") ? -60_000L : 3_600_000L);
+        token = issuer.generateToken(user);
+        jwtUtils = jwtUtils(3_600_000L);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        try {
+            return jwtUtils.extractUsername(token);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtils.validateToken(token);
+    }
+
+    private static JwtUtils jwtUtils(long expirationMs) {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "SECRET_KEY", SECRET);
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", expirationMs);
+        utils.init();
+        return utils;
+    }
+}
@@ -0,0 +1,43 @@
+package net.manifest.journalapp.benchmark;
+
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.services.SentimentAnalysisService;
+import net.manifest.journalapp.utils.sentiment.SentimentLexicon;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SentimentAnalysisService.analyze over short, medium and 20 KB entries, with the built-in lexicon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SentimentAnalysisBenchmark {
+
+    @Param({"SHORT", "MEDIUM", "LONG"})
+    public String contentSize;
+
+    private SentimentAnalysisService service;
+    private SentimentLexicon lexicon;
+    private JournalEntry entry;
+
+    @Setup
+    public void setUp() {
+        service = new SentimentAnalysisService();
+        lexicon = SentimentLexicon.of(
+                SentimentAnalysisService.POSITIVE_KEYWORDS, SentimentAnalysisService.NEGATIVE_KEYWORDS);
+        int length = switch (contentSize) {
+            case "SHORT" -> BenchmarkData.SHORT_CONTENT;
+            case "MEDIUM" -> BenchmarkData.MEDIUM_CONTENT;
+            default -> BenchmarkData.LONG_CONTENT;
+        };
+        entry = BenchmarkData.entry(length, 0, 42);
+    }
+
+    @Benchmark
+    public Sentiment analyze() {
+        return service.analyze(entry, lexicon);
+    }
+}
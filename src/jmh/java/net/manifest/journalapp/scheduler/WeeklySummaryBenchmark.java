@@ -0,0 +1,37 @@
+package net.manifest.journalapp.scheduler;
+
+import net.manifest.journalapp.benchmark.BenchmarkData;
+import net.manifest.journalapp.entity.JournalEntry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-user aggregation helpers of WeeklySummaryScheduler over one week of entries.
+ * Lives in the scheduler package because the helpers are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeeklySummaryBenchmark {
+
+    @Param({"7", "70"})
+    public int entries;
+
+    private List<JournalEntry> week;
+
+    @Setup
+    public void setUp() {
+        week = BenchmarkData.week(entries, 42);
+    }
+
+    @Benchmark
+    public void summarize(Blackhole blackhole) {
+        blackhole.consume(WeeklySummaryScheduler.calculateAverageMood(week));
+        blackhole.consume(WeeklySummaryScheduler.findDominantMood(week));
+        blackhole.consume(WeeklySummaryScheduler.calculateAverageSentiment(week));
+        blackhole.consume(WeeklySummaryScheduler.findDominantSentiment(week));
+    }
+}
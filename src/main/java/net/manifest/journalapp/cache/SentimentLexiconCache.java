@@ -0,0 +1,114 @@
+package net.manifest.journalapp.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.entity.ConfigSentimentLexiconEntity;
+import net.manifest.journalapp.repository.ConfigSentimentLexiconRepository;
+import net.manifest.journalapp.services.SentimentAnalysisService;
+import net.manifest.journalapp.utils.sentiment.SentimentLexicon;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the compiled sentiment lexicon of the latest version published in 'config_sentiment_lexicon'.
+ * <p>
+ * A new version is compiled off to the side and then swapped in atomically, so analyses in
+ * flight keep the lexicon they started with and never wait for a reload. Every node polls for
+ * newer versions, so a published change reaches all of them without a redeploy.
+ */
+@Slf4j
+@Component
+public class SentimentLexiconCache {
+
+    @Autowired
+    private ConfigSentimentLexiconRepository configSentimentLexiconRepository;
+
+    private final AtomicReference<SentimentLexicon> current = new AtomicReference<>(
+            SentimentLexicon.of(SentimentAnalysisService.POSITIVE_KEYWORDS, SentimentAnalysisService.NEGATIVE_KEYWORDS));
+
+    @PostConstruct
+    public void init() {
+        // First start against this database: publish the built-in keyword lists as version 1.
+        if (configSentimentLexiconRepository.count() == 0) {
+            try {
+                publish(SentimentLexicon.weightsOf(
+                        SentimentAnalysisService.POSITIVE_KEYWORDS, SentimentAnalysisService.NEGATIVE_KEYWORDS));
+            } catch (IllegalStateException e) {
+                log.info("Sentiment lexicon was seeded by another node.");
+            }
+        }
+        reload();
+    }
+
+    /**
+     * @return The lexicon to use for the next analysis. Callers should read it once per analysis.
+     */
+    public SentimentLexicon current() {
+        return current.get();
+    }
+
+    /**
+     * Switches to the latest published version if it is newer than the one in use.
+     */
+    @Scheduled(fixedDelayString = "${sentiment.lexicon.reload-interval-ms:30000}")
+    public void reload() {
+        try {
+            configSentimentLexiconRepository.findTopByOrderByVersionDesc()
+                    .filter(latest -> latest.getVersion() > current.get().getVersion())
+                    .ifPresent(this::swapIn);
+        } catch (Exception e) {
+            log.error("Could not reload the sentiment lexicon; keeping version {}", current.get().getVersion(), e);
+        }
+    }
+
+    /**
+     * Publishes the given weights as the next lexicon version and starts using it on this node.
+     * @param weights word -> weight; words weighing 0 are ignored.
+     * @return The published version.
+     * @throws IllegalArgumentException if a word cannot be stored as a MongoDB field name.
+     * @throws IllegalStateException if another version was published concurrently.
+     */
+    public ConfigSentimentLexiconEntity publish(Map<String, Integer> weights) {
+        for (String word : weights.keySet()) {
+            if (word == null || word.isBlank() || word.contains(".") || word.startsWith("$")) {
+                throw new IllegalArgumentException("Invalid lexicon word: '" + word + "'");
+            }
+        }
+        int nextVersion = configSentimentLexiconRepository.findTopByOrderByVersionDesc()
+                .map(latest -> latest.getVersion() + 1)
+                .orElse(1);
+        ConfigSentimentLexiconEntity entity = new ConfigSentimentLexiconEntity(nextVersion, weights, LocalDateTime.now());
+        try {
+            // insert, not save: an existing version must never be overwritten.
+            configSentimentLexiconRepository.insert(entity);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("Lexicon version " + nextVersion + " was published concurrently; retry.");
+        }
+        swapIn(entity);
+        return entity;
+    }
+
+    /**
+     * @return The weights of the version in use, as stored.
+     */
+    public ConfigSentimentLexiconEntity currentVersion() {
+        return configSentimentLexiconRepository.findById(current.get().getVersion()).orElse(null);
+    }
+
+    private void swapIn(ConfigSentimentLexiconEntity entity) {
+        SentimentLexicon compiled = SentimentLexicon.of(entity.getVersion(), entity.getWeights());
+        // Only move forward, even if a slower reload races with a publish.
+        SentimentLexicon previous = current.getAndAccumulate(compiled,
+                (inUse, candidate) -> candidate.getVersion() > inUse.getVersion() ? candidate : inUse);
+        if (previous.getVersion() < compiled.getVersion()) {
+            log.info("Sentiment lexicon switched from version {} to {} ({} words)",
+                    previous.getVersion(), compiled.getVersion(), compiled.size());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package net.manifest.journalapp.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.model.UserChangedEvent;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * A size-bounded, TTL-expiring cache of User documents in front of the users collection.
+ * A user is cached under its username, email and id; concurrent lookups of the same key
+ * share a single query. Entries are evicted whenever a UserChangedEvent is published.
+ */
+@Component
+public class UserCache {
+
+    private static final String USERNAME_KEY = "username:";
+    private static final String EMAIL_KEY = "email:";
+    private static final String ID_KEY = "id:";
+
+    @Value("${user.cache.max-size:10000}")
+    private long maxSize;
+    @Value("${user.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<String, User> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<User> getByUsername(String username, Supplier<Optional<User>> loader) {
+        return get(USERNAME_KEY + username, loader);
+    }
+
+    public Optional<User> getByEmail(String email, Supplier<Optional<User>> loader) {
+        return get(EMAIL_KEY + email, loader);
+    }
+
+    public Optional<User> getById(ObjectId id, Supplier<Optional<User>> loader) {
+        return get(ID_KEY + id.toHexString(), loader);
+    }
+
+    private Optional<User> get(String key, Supplier<Optional<User>> loader) {
+        // Callers racing on the same key wait for one load. Misses are not cached,
+        // so a user registered right after a failed lookup is found immediately.
+        User user = cache.get(key, k -> loader.get().orElse(null));
+        if (user != null) {
+            // Make the same document reachable by its other keys, so eviction by any key is complete.
+            for (String otherKey : keysOf(user)) {
+                if (!otherKey.equals(key)) {
+                    cache.asMap().putIfAbsent(otherKey, user);
+                }
+            }
+        }
+        return Optional.ofNullable(user);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getUser() != null) {
+            cache.invalidateAll(keysOf(event.getUser()));
+        } else if (event.getUserId() != null) {
+            // Only the id is known: scan for every key the user is cached under.
+            ObjectId userId = event.getUserId();
+            cache.asMap().values().removeIf(user -> userId.equals(user.getId()));
+        }
+    }
+
+    private List<String> keysOf(User user) {
+        List<String> keys = new ArrayList<>(3);
+        if (user.getUsername() != null) keys.add(USERNAME_KEY + user.getUsername());
+        if (user.getEmail() != null) keys.add(EMAIL_KEY + user.getEmail());
+        if (user.getId() != null) keys.add(ID_KEY + user.getId().toHexString());
+        return keys;
+    }
+
+    /**
+     * @return Hit ratio, eviction counts and size of the cache, for sizing it.
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitRate", stats.hitRate());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("loadCount", stats.loadCount());
+        result.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("estimatedSize", cache.estimatedSize());
+        result.put("maxSize", maxSize);
+        result.put("ttlSeconds", ttlSeconds);
+        return result;
+    }
+}
@@ -1,12 +1,28 @@
 package net.manifest.journalapp.config;
 
+import net.manifest.journalapp.model.SentimentData;
+import net.manifest.journalapp.services.SentimentConsumerService;
+import net.manifest.journalapp.services.SentimentNotificationProducer;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.KafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
@@ -33,4 +49,82 @@ public class KafkaConfig {
 
         return factory;
     }
+
+    /**
+     * Tunes the producer for the weekly fan-out, where thousands of records are sent at once:
+     * records wait up to linger-ms to fill batches of batch-size bytes, which are compressed.
+     * These take precedence over the same settings under spring.kafka.producer.
+     */
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer batchingProducerCustomizer(
+            @Value("${notifications.kafka.linger-ms:20}") int lingerMs,
+            @Value("${notifications.kafka.batch-size:65536}") int batchSize,
+            @Value("${notifications.kafka.compression-type:lz4}") String compressionType) {
+        return producerFactory -> producerFactory.updateConfigs(Map.of(
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, batchSize,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType));
+    }
+
+    /**
+     * The notifications topic, created with enough partitions for the batch listener's consumers.
+     * An existing topic with fewer partitions is extended, which moves some keys to other partitions once.
+     */
+    @Bean
+    public NewTopic weeklySentimentsTopic(@Value("${notifications.topic.partitions:6}") int partitions) {
+        return TopicBuilder.name(SentimentNotificationProducer.TOPIC)
+                .partitions(partitions)
+                .build();
+    }
+
+    /**
+     * A batch listener factory for the weekly notifications: each consumer receives up to
+     * max-poll-records records per poll and the offsets of a whole batch are committed together once
+     * the listener returns. The concurrency defaults to the topic's partition count, one consumer per partition.
+     * <p>
+     * A batch must be sent within max-poll-interval-ms, or the consumer is dropped from the group and
+     * the batch is redelivered to another one. The consumers of a node share its email-threads, so a
+     * batch takes about max-poll-records * email-time-ms * concurrency / email-threads; unless
+     * max-poll-records is set, it is derived from the other three so that this stays under half the interval.
+     * <p>
+     * A batch that fails is retried with exponential backoff from the failed record on (the records
+     * before it are committed), and a record that still fails is parked on the dead-letter topic of
+     * the notifications, from where an admin can replay it, instead of being dropped.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> sentimentBatchListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory,
+            @Value("${notifications.consumer.concurrency:${notifications.topic.partitions:6}}") int concurrency,
+            @Value("${notifications.consumer.max-poll-records:0}") int maxPollRecords,
+            @Value("${notifications.consumer.max-poll-interval-ms:600000}") long maxPollIntervalMs,
+            @Value("${notifications.consumer.email-threads:8}") int emailThreads,
+            @Value("${notifications.consumer.email-time-ms:6000}") long emailTimeMs,
+            @Value("${notifications.consumer.error.max-retries:4}") int maxRetries,
+            @Value("${notifications.consumer.error.initial-backoff-ms:2000}") long initialBackoffMs,
+            @Value("${notifications.consumer.error.multiplier:2.0}") double multiplier,
+            @Value("${notifications.consumer.error.max-backoff-ms:30000}") long maxBackoffMs,
+            KafkaTemplate<String, SentimentData> kafkaTemplate) {
+
+        if (maxPollRecords <= 0) {
+            maxPollRecords = (int) Math.max(1, maxPollIntervalMs / 2 * emailThreads / (emailTimeMs * concurrency));
+        }
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        factory.getContainerProperties().getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, String.valueOf(maxPollIntervalMs));
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(maxRetries);
+        backOff.setInitialInterval(initialBackoffMs);
+        backOff.setMultiplier(multiplier);
+        backOff.setMaxInterval(maxBackoffMs);
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(SentimentConsumerService.DLT_TOPIC, -1));
+        factory.setCommonErrorHandler(new DefaultErrorHandler(recoverer, backOff));
+        return factory;
+    }
 }
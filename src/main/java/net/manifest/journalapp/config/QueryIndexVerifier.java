@@ -0,0 +1,122 @@
+package net.manifest.journalapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Explains the query shapes used by the repositories at startup and warns about any that
+ * would scan a whole collection or sort in memory, so a missing or dropped index shows up
+ * in the logs instead of as a slow endpoint.
+ */
+@Slf4j
+@Component
+public class QueryIndexVerifier {
+
+    private static final String JOURNAL_ENTRIES = "journal_entries";
+    private static final Document NEWEST_FIRST = new Document("createdAt", -1).append("_id", -1);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${mongo.index-verifier.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * One representative of each query shape; the values themselves do not matter to the planner.
+     */
+    private List<QueryShape> queryShapes() {
+        ObjectId id = new ObjectId();
+        return List.of(
+                new QueryShape("user timeline", JOURNAL_ENTRIES,
+                        new Document("userId", id), NEWEST_FIRST),
+                new QueryShape("user timeline by tag", JOURNAL_ENTRIES,
+                        new Document("userId", id).append("tags", "tag"), NEWEST_FIRST),
+                new QueryShape("user entries of the week", JOURNAL_ENTRIES,
+                        new Document("userId", id).append("createdAt", new Document("$gt", new Date())), null),
+                new QueryShape("public feed", JOURNAL_ENTRIES,
+                        new Document("isPublic", true), NEWEST_FIRST),
+                new QueryShape("public feed by tag", JOURNAL_ENTRIES,
+                        new Document("isPublic", true).append("tags", "tag"), NEWEST_FIRST),
+                new QueryShape("entry comments", "journal_comments",
+                        new Document("journalId", id), new Document("_id", 1)),
+                new QueryShape("users for the weekly report", "users",
+                        new Document("sentimentAnalysisEnabled", true).append("emailValid", true)
+                                .append("_id", new Document("$gte", id)), new Document("_id", 1))
+        );
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void verify() {
+        if (!enabled) {
+            return;
+        }
+        int problems = 0;
+        for (QueryShape shape : queryShapes()) {
+            try {
+                var find = mongoTemplate.getCollection(shape.collection()).find(shape.filter());
+                if (shape.sort() != null) {
+                    find = find.sort(shape.sort());
+                }
+                Document winningPlan = find.explain()
+                        .get("queryPlanner", Document.class)
+                        .get("winningPlan", Document.class);
+                if (hasStage(winningPlan, "COLLSCAN")) {
+                    log.warn("Query '{}' on {} runs without an index (COLLSCAN): filter={} sort={}",
+                            shape.name(), shape.collection(), shape.filter().toJson(), shape.sort());
+                    problems++;
+                } else if (hasStage(winningPlan, "SORT")) {
+                    log.warn("Query '{}' on {} sorts in memory: filter={} sort={}",
+                            shape.name(), shape.collection(), shape.filter().toJson(), shape.sort());
+                    problems++;
+                }
+            } catch (Exception e) {
+                log.warn("Could not explain query '{}' on {}", shape.name(), shape.collection(), e);
+            }
+        }
+        if (problems == 0) {
+            log.info("All {} verified query shapes are served by an index.", queryShapes().size());
+        }
+    }
+
+    // Plans are trees: stages nest under 'inputStage' or, for OR and similar stages, 'inputStages'.
+    // Servers using the slot-based engine wrap the tree in 'queryPlan'.
+    private static boolean hasStage(Document plan, String stage) {
+        if (plan == null) {
+            return false;
+        }
+        if (plan.containsKey("queryPlan")) {
+            return hasStage(plan.get("queryPlan", Document.class), stage);
+        }
+        if (stage.equals(plan.getString("stage"))) {
+            return true;
+        }
+        if (hasStage(plan.get("inputStage", Document.class), stage)) {
+            return true;
+        }
+        Object inputStages = plan.get("inputStages");
+        if (inputStages instanceof List<?> stages) {
+            for (Object child : stages) {
+                if (child instanceof Document childPlan && hasStage(childPlan, stage)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private record QueryShape(String name, String collection, Document filter, Document sort) {
+    }
+}
@@ -74,7 +74,7 @@ public class ApiOAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticati
 
             if (userOptional.isPresent()) {
                 User user = userOptional.get();
-                String token = jwtUtils.generateToken(user.getUsername());
+                String token = jwtUtils.generateToken(user);
                 List<String> roles = user.getRoles().stream()
                         .map(Role::name)
                         .collect(Collectors.toList());
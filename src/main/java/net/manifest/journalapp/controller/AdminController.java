@@ -4,8 +4,18 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import net.manifest.journalapp.cache.AppCache;
+import net.manifest.journalapp.cache.SentimentLexiconCache;
+import net.manifest.journalapp.cache.UserCache;
+import net.manifest.journalapp.entity.ConfigSentimentLexiconEntity;
+import net.manifest.journalapp.entity.JobPartition;
 import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.scheduler.PartitionedJobRunner;
 import net.manifest.journalapp.services.JournalEntryService;
+import net.manifest.journalapp.services.JournalRollupService;
+import net.manifest.journalapp.services.NotificationDeliveryLedger;
+import net.manifest.journalapp.services.NotificationOutboxRelay;
+import net.manifest.journalapp.services.SentimentDltReplayService;
+import net.manifest.journalapp.services.SentimentRescoreJob;
 import net.manifest.journalapp.services.UserService;
 import org.apache.logging.log4j.util.PerformanceSensitive;
 import org.bson.types.ObjectId;
@@ -16,6 +26,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 
 @Slf4j
@@ -32,6 +43,22 @@ public class AdminController {
     private JournalEntryService journalEntryService;
     @Autowired
     private AppCache appCache;
+    @Autowired
+    private UserCache userCache;
+    @Autowired
+    private SentimentRescoreJob sentimentRescoreJob;
+    @Autowired
+    private SentimentLexiconCache sentimentLexiconCache;
+    @Autowired
+    private JournalRollupService journalRollupService;
+    @Autowired
+    private PartitionedJobRunner partitionedJobRunner;
+    @Autowired
+    private SentimentDltReplayService sentimentDltReplayService;
+    @Autowired
+    private NotificationOutboxRelay notificationOutboxRelay;
+    @Autowired
+    private NotificationDeliveryLedger notificationDeliveryLedger;
 
 
     /**
@@ -160,4 +187,156 @@ public class AdminController {
         appCache.init();
         return new ResponseEntity<>("App-Cache cleared successfully.",HttpStatus.OK);
     }
+
+    /**
+     * Reports the hit ratio, eviction counts and size of the in-process user cache.
+     * @return A ResponseEntity containing the cache statistics.
+     */
+    @Operation(summary = "Get user cache statistics")
+    @GetMapping("/cache/users/stats")
+    public ResponseEntity<Map<String, Object>> getUserCacheStats(){
+        return ResponseEntity.ok(userCache.stats());
+    }
+
+    /**
+     * Starts recomputing the sentiment of every journal entry in the background.
+     * @param restart If true, starts over instead of resuming from the last checkpoint.
+     * @return A ResponseEntity containing the job status, or 409 CONFLICT if it is already running.
+     */
+    @Operation(summary = "Start the sentiment re-scoring job")
+    @PostMapping("/sentiment/rescore")
+    public ResponseEntity<?> startSentimentRescore(@RequestParam(defaultValue = "false") boolean restart){
+        try {
+            log.warn("ADMIN ACTION: Sentiment rescore started (restart={})", restart);
+            return ResponseEntity.accepted().body(sentimentRescoreJob.start(restart));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Reports the progress and throughput of the sentiment re-scoring job.
+     * @return A ResponseEntity containing the job status.
+     */
+    @Operation(summary = "Get the status of the sentiment re-scoring job")
+    @GetMapping("/sentiment/rescore")
+    public ResponseEntity<Map<String, Object>> getSentimentRescoreStatus(){
+        return ResponseEntity.ok(sentimentRescoreJob.status());
+    }
+
+    /**
+     * Stops the sentiment re-scoring job; it can be resumed later from its checkpoint.
+     * @return A ResponseEntity indicating whether a running job was stopped.
+     */
+    @Operation(summary = "Cancel the sentiment re-scoring job")
+    @DeleteMapping("/sentiment/rescore")
+    public ResponseEntity<String> cancelSentimentRescore(){
+        if (sentimentRescoreJob.cancel()) {
+            log.warn("ADMIN ACTION: Sentiment rescore cancelled");
+            return ResponseEntity.ok("Sentiment rescore is stopping.");
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Retrieves the sentiment lexicon version in use, with its word weights.
+     * @return A ResponseEntity containing the lexicon version.
+     */
+    @Operation(summary = "Get the sentiment lexicon in use")
+    @GetMapping("/sentiment/lexicon")
+    public ResponseEntity<?> getSentimentLexicon(){
+        ConfigSentimentLexiconEntity lexicon = sentimentLexiconCache.currentVersion();
+        if (lexicon == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(lexicon);
+    }
+
+    /**
+     * Publishes a new version of the sentiment lexicon. All nodes switch to it within the reload
+     * interval; run the re-scoring job afterwards to update the existing entries.
+     * @param weights The complete new lexicon, as word -> weight.
+     * @return A ResponseEntity containing the published version.
+     */
+    @Operation(summary = "Publish a new sentiment lexicon version")
+    @PostMapping("/sentiment/lexicon")
+    public ResponseEntity<?> publishSentimentLexicon(@RequestBody Map<String, Integer> weights){
+        try {
+            ConfigSentimentLexiconEntity published = sentimentLexiconCache.publish(weights);
+            log.warn("ADMIN ACTION: Published sentiment lexicon version {} ({} words)", published.getVersion(), weights.size());
+            return ResponseEntity.status(HttpStatus.CREATED).body(published);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes the daily and weekly activity rollups of all users from their journal entries,
+     * e.g. to reconcile them after a failed incremental update. Run it while writes are quiet.
+     * @return A ResponseEntity containing the number of rollups afterwards.
+     */
+    @Operation(summary = "Rebuild the daily and weekly journal rollups from the entries")
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollups(){
+        log.warn("ADMIN ACTION: Rebuilding the journal rollups");
+        long rollups = journalRollupService.rebuild();
+        return ResponseEntity.ok(Map.of("rollups", rollups));
+    }
+
+    /**
+     * Retrieves the per-partition progress of the latest run of a partitioned job
+     * ("weekly-summary" or "weekly-notification").
+     * @param jobName The job's name.
+     * @return A ResponseEntity containing the run's partitions, or 404 NOT FOUND if the job never ran.
+     */
+    @Operation(summary = "Get the partition progress of a job's latest run")
+    @GetMapping("/jobs/{jobName}/partitions")
+    public ResponseEntity<?> getJobPartitions(@PathVariable String jobName){
+        List<JobPartition> partitions = partitionedJobRunner.lastRun(jobName);
+        if (partitions.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(partitions);
+    }
+
+    /**
+     * Sends the weekly sentiment emails that failed all retries (the dead-letter topic) through
+     * the retry topics again, e.g. once an SMTP outage is over. Each record is replayed once.
+     * @return A ResponseEntity containing the number of records replayed.
+     */
+    @Operation(summary = "Replay the dead-letter topic of the weekly sentiment emails")
+    @PostMapping("/notifications/dlt/replay")
+    public ResponseEntity<?> replaySentimentDeadLetters(){
+        try {
+            log.warn("ADMIN ACTION: Replaying the dead-letter sentiment emails");
+            return ResponseEntity.ok(sentimentDltReplayService.replay());
+        } catch (Exception e) {
+            log.error("Replaying the dead-letter sentiment emails failed", e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Replay failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the state of the notification outbox: the events waiting to be published to Kafka,
+     * published, and given up on, plus this node's relay counters.
+     * @return A ResponseEntity containing the outbox counts.
+     */
+    @Operation(summary = "Get the notification outbox status")
+    @GetMapping("/notifications/outbox")
+    public ResponseEntity<Map<String, Object>> getNotificationOutboxStatus(){
+        return ResponseEntity.ok(notificationOutboxRelay.status());
+    }
+
+    /**
+     * Retrieves this node's delivery ledger counters: the duplicate weekly emails dropped before
+     * sending, and the size of the cache of recently sent keys.
+     * @return A ResponseEntity containing the counters.
+     */
+    @Operation(summary = "Get the duplicate weekly emails dropped by the delivery ledger")
+    @GetMapping("/notifications/deliveries")
+    public ResponseEntity<Map<String, Object>> getNotificationDeliveryStats(){
+        return ResponseEntity.ok(notificationDeliveryLedger.stats());
+    }
 }
@@ -91,7 +91,7 @@ public class AuthController {
             log.info("Updated lastLoginAt timestamp for user '{}'.", user.getUsername());
 
             // 4. Generate the JWT
-            String token = jwtUtils.generateToken(user.getUsername());
+            String token = jwtUtils.generateToken(user);
             List<String> roles = user.getRoles().stream()
                     .map(role -> role.name())
                     .collect(Collectors.toList());
@@ -104,7 +104,7 @@ public class GoogleAuthController {
 
                 User user = userService.findOrCreateOauthUser(userInfo);
 
-                String jwt = jwtUtils.generateToken(user.getUsername());
+                String jwt = jwtUtils.generateToken(user);
 
                 List<String> roles = user.getRoles().stream()
                         .map(Role::name)
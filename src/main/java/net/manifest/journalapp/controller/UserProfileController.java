@@ -53,7 +53,7 @@ public class UserProfileController {
     @PutMapping
     @Operation(summary = "Update user's profile details")
     public  ResponseEntity<?>updateUserProfile(@RequestBody UserUpdateDTO newUser){
-        String username = getCurrentUserFromDatabase().getUsername();
+        String username = authenticatedUsername();
         User updatedUser = userService.updateUserProfile(username, newUser);
         return ResponseEntity.status(HttpStatus.OK).body(updatedUser);
     }
@@ -64,7 +64,7 @@ public class UserProfileController {
     @PostMapping("/change-password")
     @Operation(summary = "Change user's password")
     public ResponseEntity<String> changePassword(@Valid @RequestBody ChangePasswordDTO changePasswordDTO){
-         String username = getCurrentUserFromDatabase().getUsername();
+         String username = authenticatedUsername();
          userService.changePassword(username,changePasswordDTO);
          return ResponseEntity.status(HttpStatus.OK).body("Password changed successfully☑️.");
     }
@@ -75,7 +75,7 @@ public class UserProfileController {
     @GetMapping("/external-api")
      @Operation(summary = "External Weather API - To learn how to hit external APIs")
       public ResponseEntity<String>greetings(@RequestParam String city){
-          String  userName = getCurrentUserFromDatabase().getUsername();
+          String  userName = authenticatedUsername();
          WeatherResponse weatherResponse = weatherService.getWeather(city);
          String response ="";
          if(weatherResponse != null){
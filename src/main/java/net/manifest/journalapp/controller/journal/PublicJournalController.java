@@ -2,8 +2,8 @@ package net.manifest.journalapp.controller.journal;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import net.manifest.journalapp.dto.journal.JournalResponseDTO;
-import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.dto.journal.JournalSummaryDTO;
+import net.manifest.journalapp.model.AuthenticatedUser;
 import net.manifest.journalapp.services.JournalEntryService;
 import net.manifest.journalapp.services.UserService;
 import org.bson.types.ObjectId;
@@ -13,8 +13,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -29,28 +27,27 @@ public class PublicJournalController {
 
 
     /**
-     * Securely retrieves the full User entity for the currently logged-in user.
-     * @return The fully populated User entity from the database.
+     * Retrieves the principal of the currently logged-in user from the security context.
+     * @return The id, username and authorities of the logged-in user.
      */
-    private User getCurrentUserFromDatabase() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Authenticated user not found in database: " + username));
+    private AuthenticatedUser getCurrentUser() {
+        return userService.currentUser();
     }
 
 
     /**
      * Retrieves a paginated list of all journal entries that have been marked as public.
      * @param pageable Spring automatically populates this with query params for pagination and sorting.
-     * @return A ResponseEntity containing a Page of public journal entry DTOs.
+     * @param previewLength The number of content characters to include in each summary (max 500); 0 for none.
+     * @return A ResponseEntity containing a Page of public journal entry summaries.
      */
 
     @Operation(summary = "Get all public journal entries (paginated)")
     @GetMapping
-    public ResponseEntity<Page<JournalResponseDTO>> getPublicJournalEntries(
-           @PageableDefault(sort = "createdAt",direction = Sort.Direction.DESC) Pageable pageable){
-        Page<JournalResponseDTO> publicEntries = journalEntryService.getPublicEntries(pageable);
+    public ResponseEntity<Page<JournalSummaryDTO>> getPublicJournalEntries(
+           @PageableDefault(sort = "createdAt",direction = Sort.Direction.DESC) Pageable pageable,
+           @RequestParam(defaultValue = "0") int previewLength){
+        Page<JournalSummaryDTO> publicEntries = journalEntryService.getPublicEntries(pageable, previewLength);
         return ResponseEntity.ok(publicEntries);
     }
 
@@ -58,17 +55,42 @@ public class PublicJournalController {
      * Retrieves a paginated list of public journal entries that contain a specific tag.
      * @param tag The tag to filter by, passed as a query parameter (e.g., ?tag=philosophy).
      * @param pageable Standard pagination parameters.
-     * @return A ResponseEntity containing a Page of matching public journal entry DTOs.
+     * @param previewLength The number of content characters to include in each summary (max 500); 0 for none.
+     * @return A ResponseEntity containing a Page of matching public journal entry summaries.
      */
     @Operation(summary = "Get public journal entries filtered by a specific tag")
     @GetMapping("/by-tag")
-    public ResponseEntity<Page<JournalResponseDTO>> getPublicJournalEntriesByTag(@RequestParam String tag,
-            @PageableDefault(sort = "createdAt",direction = Sort.Direction.DESC) Pageable pageable){
-        Page<JournalResponseDTO> publicEntries = journalEntryService.getPublicEntriesByTag(tag,pageable);
+    public ResponseEntity<Page<JournalSummaryDTO>> getPublicJournalEntriesByTag(@RequestParam String tag,
+            @PageableDefault(sort = "createdAt",direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(defaultValue = "0") int previewLength){
+        Page<JournalSummaryDTO> publicEntries = journalEntryService.getPublicEntriesByTag(tag,pageable,previewLength);
         return ResponseEntity.ok(publicEntries);
     }
 
 
+    /**
+     * Retrieves public journal entries, newest first, using cursor (keyset) pagination.
+     * Deep pages are as fast as the first one, but no total count is returned.
+     * @param tag An optional tag to filter by.
+     * @param cursor The 'nextCursor' of the previous page; omit it for the first page.
+     * @param size The number of entries per page (max 100).
+     * @param previewLength The number of content characters to include in each summary (max 500); 0 for none.
+     * @return A ResponseEntity containing the page of summaries and the cursor of the next page.
+     */
+    @Operation(summary = "Get public journal entries (cursor-paginated)")
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getPublicJournalEntriesByCursor(@RequestParam(required = false) String tag,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "20") int size,
+                                                             @RequestParam(defaultValue = "0") int previewLength){
+        try{
+            return ResponseEntity.ok(journalEntryService.getPublicEntriesAfter(tag, cursor, size, previewLength));
+        }catch(IllegalArgumentException e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+
     /**
      * Retrieves a single public journal entry by its unique ID.
      * @param journalId The ID of the public entry to fetch.
@@ -106,7 +128,7 @@ public class PublicJournalController {
         }catch (IllegalArgumentException ex){
             return ResponseEntity.badRequest().body("Invalid ObjectId: "+ journalId);
         }
-        User currentUser = getCurrentUserFromDatabase();
+        AuthenticatedUser currentUser = getCurrentUser();
         try {
             journalEntryService.addComment(myJournalId, commentText, currentUser);
             return ResponseEntity.ok("Comment added successfully.");
@@ -117,6 +139,34 @@ public class PublicJournalController {
     }
 
 
+    /**
+     * Retrieves the comments of a public journal entry, oldest first.
+     * @param journalId The ID of the public entry.
+     * @param cursor The 'nextCursor' of the previous page; omit it for the first page.
+     * @param size The number of comments per page (max 100).
+     * @return A ResponseEntity containing the page of comments and the cursor of the next page.
+     */
+    @Operation(summary = "Get the comments of a public journal entry (cursor-paginated)")
+    @GetMapping("/Id/{journalId}/comments")
+    public ResponseEntity<?> getComments(@PathVariable String journalId,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "20") int size) {
+        final ObjectId myJournalId;
+        try{
+            myJournalId = new ObjectId(journalId);
+        }catch (IllegalArgumentException ex){
+            return ResponseEntity.badRequest().body("Invalid ObjectId: "+ journalId);
+        }
+        try {
+            return journalEntryService.getComments(myJournalId, cursor, size)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+
     /**
      * Allows an authenticated user to submit a rating for a public journal entry.
      * @param journalId The ID of the public entry to rate.
@@ -135,7 +185,7 @@ public class PublicJournalController {
         }catch (IllegalArgumentException ex){
             return ResponseEntity.badRequest().body("Invalid ObjectId: "+ journalId);
         }
-        User currentUser = getCurrentUserFromDatabase();
+        AuthenticatedUser currentUser = getCurrentUser();
         try {
             journalEntryService.addRating(myJournalId, rating, currentUser);
             return ResponseEntity.ok("Rating submitted successfully.");
@@ -7,8 +7,12 @@ import lombok.extern.slf4j.Slf4j;
 import net.manifest.journalapp.dto.journal.JournalEntryDTO;
 import net.manifest.journalapp.dto.journal.JournalEntryPatchDTO;
 import net.manifest.journalapp.dto.journal.JournalResponseDTO;
-import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.dto.journal.JournalRollupDTO;
+import net.manifest.journalapp.dto.journal.JournalSummaryDTO;
+import net.manifest.journalapp.enums.RollupPeriod;
+import net.manifest.journalapp.model.AuthenticatedUser;
 import net.manifest.journalapp.services.JournalEntryService;
+import net.manifest.journalapp.services.JournalRollupService;
 import net.manifest.journalapp.services.UserService;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,13 +20,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -34,22 +39,16 @@ public class UserJournalController {
     private JournalEntryService journalEntryService;
     @Autowired
     private UserService userService;
-
-     private String getAuthenticatedUser(){
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
-    }
+    @Autowired
+    private JournalRollupService journalRollupService;
 
     /**
-     * Helper method to get the current user by fetching them from the database
-     * using the username from the security context.
-     * @return The full User entity for the logged-in user.
+     * Helper method to get the current user from the security context.
+     * The principal is built from the JWT's signed claims, so no database lookup is needed.
+     * @return The id, username and authorities of the logged-in user.
      */
-    private User getCurrentUserFromDatabase() {
-        String username = getAuthenticatedUser();// Get the username (String)
-        // Perform a database lookup to get the full User object
-        return userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Authenticated user not found in database"));
+    private AuthenticatedUser getCurrentUser() {
+        return userService.currentUser();
     }
 
     
@@ -58,14 +57,16 @@ public class UserJournalController {
     /**
      * Retrieves a paginated list of the authenticated user's journal entries.
      * @param pageable Spring automatically populates this with query params like ?page=0&size=10&sort=createdAt,desc
-     * @return A ResponseEntity containing a Page of journal entry response DTOs.
+     * @param previewLength The number of content characters to include in each summary (max 500); 0 for none.
+     * @return A ResponseEntity containing a Page of journal entry summaries.
      */
 
     @GetMapping
     @Operation(summary = "Get all journals for current logged-in user")
-    public ResponseEntity<?>getMyJournalEntries(@PageableDefault(sort = "createdAt",direction = Sort.Direction.DESC) Pageable pageable){
-        User loggedInUser = getCurrentUserFromDatabase();
-        Page<JournalResponseDTO> entriesForUser = journalEntryService.getEntriesForUser(loggedInUser, pageable);
+    public ResponseEntity<?>getMyJournalEntries(@PageableDefault(sort = "createdAt",direction = Sort.Direction.DESC) Pageable pageable,
+                                                @RequestParam(defaultValue = "0") int previewLength){
+        AuthenticatedUser loggedInUser = getCurrentUser();
+        Page<JournalSummaryDTO> entriesForUser = journalEntryService.getEntriesForUser(loggedInUser, pageable, previewLength);
         return  ResponseEntity.ok(entriesForUser);
     }
 
@@ -76,15 +77,17 @@ public class UserJournalController {
      *
      * @param tag      The tag to filter by, passed as a query parameter (e.g., ?tag=work).
      * @param pageable Standard pagination parameters.
-     * @return A ResponseEntity containing a Page of matching journal entry DTOs.
+     * @param previewLength The number of content characters to include in each summary (max 500); 0 for none.
+     * @return A ResponseEntity containing a Page of matching journal entry summaries.
      */
     @Operation(summary = "Get my journal entries filtered by a specific tag")
     @GetMapping("/by-tag")
     public ResponseEntity<?> getMyJournalEntriesUsingTag(@RequestParam String tag ,
-                                                                                @PageableDefault(sort="createdAt",direction = Sort.Direction.DESC) Pageable pageable){
-        User user = getCurrentUserFromDatabase();
+                                                                                @PageableDefault(sort="createdAt",direction = Sort.Direction.DESC) Pageable pageable,
+                                                                                @RequestParam(defaultValue = "0") int previewLength){
+        AuthenticatedUser user = getCurrentUser();
         try{
-            Page<JournalResponseDTO> entries = journalEntryService.getEntriesForUserByTag(user, tag, pageable);
+            Page<JournalSummaryDTO> entries = journalEntryService.getEntriesForUserByTag(user, tag, pageable, previewLength);
             return ResponseEntity.ok(entries);
         }catch(Exception e){
              log.error("Error in filtering the entries using tags for user having user ID: {} and username: {}",user.getId(),user.getUsername());
@@ -92,6 +95,29 @@ public class UserJournalController {
         }
     }
 
+    /**
+     * Retrieves the user's journal entries, newest first, using cursor (keyset) pagination.
+     * Deep pages are as fast as the first one, but no total count is returned.
+     * @param tag An optional tag to filter by.
+     * @param cursor The 'nextCursor' of the previous page; omit it for the first page.
+     * @param size The number of entries per page (max 100).
+     * @param previewLength The number of content characters to include in each summary (max 500); 0 for none.
+     * @return A ResponseEntity containing the page of summaries and the cursor of the next page.
+     */
+    @Operation(summary = "Get my journal entries (cursor-paginated)")
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getMyJournalEntriesByCursor(@RequestParam(required = false) String tag,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20") int size,
+                                                         @RequestParam(defaultValue = "0") int previewLength){
+        AuthenticatedUser user = getCurrentUser();
+        try{
+            return ResponseEntity.ok(journalEntryService.getEntriesForUserAfter(user, tag, cursor, size, previewLength));
+        }catch(IllegalArgumentException e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     //CREATION - CONTROLLER
 
     /**
@@ -103,7 +129,7 @@ public class UserJournalController {
     @Operation(summary = "Add journals for current logged-in user")
     public ResponseEntity<JournalResponseDTO>createJournal(@Valid @RequestBody JournalEntryDTO journal) {
         try{
-            User currentUser = getCurrentUserFromDatabase();
+            AuthenticatedUser currentUser = getCurrentUser();
             //Persist
             JournalResponseDTO journalResponseDTO = journalEntryService.saveNewEntry(journal, currentUser);
             //Build Response DTO
@@ -128,7 +154,7 @@ public class UserJournalController {
         }catch (IllegalArgumentException ex){
             return ResponseEntity.badRequest().body("Invalid ObjectId: " + journalId);
         }
-        User loggedInUser = getCurrentUserFromDatabase();
+        AuthenticatedUser loggedInUser = getCurrentUser();
         Optional<JournalResponseDTO> entryByIdForUser = journalEntryService.findEntryByIdForUser(myJournalId, loggedInUser);
          if(entryByIdForUser.isEmpty()){
               throw new ResponseStatusException(HttpStatus.NOT_FOUND,"No journal found with this id");
@@ -156,7 +182,7 @@ public class UserJournalController {
         }catch (IllegalArgumentException ex){
             return new ResponseEntity<>("Invalid ObjectId: "+journalId,HttpStatus.BAD_REQUEST);
         }
-        User loggedInUser = getCurrentUserFromDatabase();
+        AuthenticatedUser loggedInUser = getCurrentUser();
         Optional<JournalResponseDTO> updatedEntry = journalEntryService.updatedEntry(myJournalId, dto, loggedInUser);
         if(updatedEntry.isEmpty()){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,"Error in updating the entry.");
@@ -185,7 +211,7 @@ public class UserJournalController {
                return ResponseEntity.badRequest().body("Invalid ObjectId: "+ journalId);
           }
 
-          User loggedInUser = getCurrentUserFromDatabase();
+          AuthenticatedUser loggedInUser = getCurrentUser();
           Optional<JournalResponseDTO> patchedEntryOptional = journalEntryService.patchEntry(myJournalId, patchDto, loggedInUser);
          if(patchedEntryOptional.isEmpty()){
              throw new ResponseStatusException(HttpStatus.NOT_FOUND,"Error in patching the entry.");
@@ -212,7 +238,7 @@ public class UserJournalController {
             return ResponseEntity.badRequest().body("Invalid ObjectId: "+ journalId);
         }
 
-         User currentUser = getCurrentUserFromDatabase();
+         AuthenticatedUser currentUser = getCurrentUser();
          boolean removed = journalEntryService.deleteJournalEntry(myJournalId,currentUser);
          if(removed) {
              return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
@@ -220,4 +246,43 @@ public class UserJournalController {
               return  ResponseEntity.status(HttpStatus.NOT_FOUND).body("No journal entry to delete for this id.");
          }
     }
+
+    //ACTIVITY ROLLUPS
+
+    /**
+     * Retrieves the authenticated user's stats for the current day or ISO week: entry count,
+     * average mood and sentiment scores, dominant mood and sentiment, and their histograms.
+     * @param period DAY or WEEK.
+     * @return A ResponseEntity containing the rollup (all zero if nothing was written yet).
+     */
+    @Operation(summary = "Get my journaling stats for the current day or week")
+    @GetMapping("/rollups/current")
+    public ResponseEntity<JournalRollupDTO> getMyCurrentRollup(@RequestParam(defaultValue = "WEEK") RollupPeriod period){
+        AuthenticatedUser user = getCurrentUser();
+        return ResponseEntity.ok(journalRollupService.current(user.getId(), period));
+    }
+
+    /**
+     * Retrieves the authenticated user's daily or weekly stats over a date range, newest first.
+     * Periods without entries are left out.
+     * @param period DAY or WEEK.
+     * @param from The first date (ISO format); defaults to 12 weeks before 'to'.
+     * @param to The last date (ISO format); defaults to today.
+     * @return A ResponseEntity containing the rollups, or 400 BAD REQUEST for an invalid range.
+     */
+    @Operation(summary = "Get my daily or weekly journaling stats over a date range")
+    @GetMapping("/rollups")
+    public ResponseEntity<?> getMyRollups(@RequestParam(defaultValue = "WEEK") RollupPeriod period,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        AuthenticatedUser user = getCurrentUser();
+        LocalDate end = (to != null) ? to : LocalDate.now();
+        LocalDate start = (from != null) ? from : end.minusWeeks(12);
+        try{
+            List<JournalRollupDTO> rollups = journalRollupService.range(user.getId(), period, start, end);
+            return ResponseEntity.ok(rollups);
+        }catch(IllegalArgumentException e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
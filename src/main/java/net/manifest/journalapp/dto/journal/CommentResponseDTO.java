@@ -0,0 +1,19 @@
+package net.manifest.journalapp.dto.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class CommentResponseDTO {
+    private String userId;
+    private String username;
+    private String text;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,18 @@
+package net.manifest.journalapp.dto.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated listing.
+ * Pass 'nextCursor' back as the 'cursor' parameter to fetch the following page;
+ * it is null when there is nothing more to read.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+}
@@ -25,6 +25,7 @@ public class JournalResponseDTO {
     private Mood mood;
     private List<String> tags;
     private RatingStats ratingStats;
+    private int commentCount;
     private Location location;
     private Weather weather;
 
@@ -0,0 +1,33 @@
+package net.manifest.journalapp.dto.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.RollupPeriod;
+import net.manifest.journalapp.enums.Sentiment;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * A user's journaling stats over one day or ISO week, derived from a JournalRollup.
+ * Averages are 0 and the dominant values fall back to MEH / NEUTRAL when nothing was recorded.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class JournalRollupDTO {
+    private RollupPeriod period;
+    private String periodKey;
+    private LocalDate periodStart;
+    private int entryCount;
+    private double averageMoodScore;
+    private Mood dominantMood;
+    private double averageSentimentScore;
+    private Sentiment dominantSentiment;
+    private Map<Mood, Integer> moodCounts;
+    private Map<Sentiment, Integer> sentimentCounts;
+}
@@ -0,0 +1,35 @@
+package net.manifest.journalapp.dto.journal;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.utils.journalutils.RatingStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The list-view form of a journal entry, read straight from a server-side projection.
+ * It carries only metadata and an optional content preview; the full entry is
+ * available from the 'Id/{journalId}' endpoints.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class JournalSummaryDTO {
+    private String id;
+    private String userId;
+    private String title;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private Sentiment sentiment;
+    private Mood mood;
+    private List<String> tags;
+    private RatingStats ratingStats;
+    private int commentCount;
+
+    // The first 'previewLength' characters of the content; null unless a preview was requested.
+    private String contentPreview;
+}
@@ -0,0 +1,45 @@
+package net.manifest.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.manifest.journalapp.utils.journalutils.Comment;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds up to BUCKET_SIZE comments of one public journal entry.
+ * Comments are appended to the entry's newest bucket while it has room, so an entry with
+ * many comments grows by adding buckets instead of growing the JournalEntry document.
+ * Buckets are numbered per entry ('seq'), and the unique (journalId, seq) index lets only one
+ * writer open each next bucket, which makes (journalId, seq) the reading order.
+ */
+@Document(collection = "journal_comments")
+@CompoundIndex(name = "journal_seq_idx", def = "{'journalId': 1, 'seq': 1}", unique = true)
+@Data
+@NoArgsConstructor
+public class CommentBucket {
+
+    public static final int BUCKET_SIZE = 100;
+
+    @Id
+    private ObjectId id;
+
+    private ObjectId journalId;
+
+    // The bucket's position among the entry's buckets. Buckets of embedded comments moved here
+    // have negative numbers, so they are read before those written since.
+    private int seq;
+
+    // Number of comments in this bucket; a bucket is full once it reaches BUCKET_SIZE.
+    private int count;
+
+    private List<Comment> comments = new ArrayList<>();
+
+    private LocalDateTime createdAt;
+}
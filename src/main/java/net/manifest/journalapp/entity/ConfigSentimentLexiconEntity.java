@@ -0,0 +1,29 @@
+package net.manifest.journalapp.entity;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One published version of the sentiment keyword lexicon. Versions are never edited;
+ * publishing a change inserts the next version, and every node switches to the highest one.
+ */
+@Document(collection = "config_sentiment_lexicon")
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+public class ConfigSentimentLexiconEntity {
+
+        // The version doubles as the _id, so two nodes can never publish the same version.
+        @Id
+        private Integer version;
+
+        // word -> weight; positive words weigh more than 0, negative words less than 0.
+        private Map<String, Integer> weights;
+
+        private LocalDateTime publishedAt;
+}
@@ -0,0 +1,49 @@
+package net.manifest.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * The progress of a long-running background job over a collection, saved as it goes so that
+ * the job can resume where it stopped after a cancel or a restart. A job runs on one node at a
+ * time: the node claims the checkpoint before it starts and keeps the claim while it saves progress.
+ */
+@Document(collection = "job_checkpoints")
+@Data
+@NoArgsConstructor
+public class JobCheckpoint {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String CANCELLED = "CANCELLED";
+    public static final String FAILED = "FAILED";
+
+    // The job's name, e.g. "sentiment-rescore".
+    @Id
+    private String jobName;
+
+    private String status;
+
+    // The process running the job; another one may only take it over once claimedUntil has passed,
+    // which the owner pushes forward with every save.
+    private String owner;
+    private LocalDateTime claimedUntil;
+
+    // Job specific: the sentiment lexicon version a rescore run brings entries up to.
+    private Integer lexiconVersion;
+
+    // Every document up to and including this _id has been processed.
+    private ObjectId lastProcessedId;
+
+    private long processed;
+    private long updated;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,28 @@
+package net.manifest.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A named lease held by one node of the cluster until it expires (see JobLeaseService).
+ * A lease whose owner stopped renewing it is free again once expiresAt has passed.
+ */
+@Document(collection = "job_leases")
+@Data
+@NoArgsConstructor
+public class JobLease {
+
+    // The job name, e.g. "weekly-summary".
+    @Id
+    private String name;
+
+    // The node id of the holder.
+    private String owner;
+
+    private LocalDateTime acquiredAt;
+    private LocalDateTime expiresAt;
+}
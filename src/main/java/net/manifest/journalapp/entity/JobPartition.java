@@ -0,0 +1,64 @@
+package net.manifest.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One user id range of a run of a partitioned job (see PartitionedJobRunner) and its progress.
+ * The ranges of a run are contiguous: [fromUserId, toUserId), where a null bound is open.
+ * <p>
+ * Any node may claim a PENDING partition, or a RUNNING one whose lease has expired because its
+ * owner stopped renewing it; the new owner continues after lastUserId.
+ */
+@Document(collection = "job_partitions")
+@CompoundIndex(name = "job_run_idx", def = "{'jobName': 1, 'runStartedAt': -1, 'index': 1}")
+@CompoundIndex(name = "claim_idx", def = "{'status': 1, 'leaseExpiresAt': 1}")
+@Data
+@NoArgsConstructor
+public class JobPartition {
+
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    // "<runId>:<index>"
+    @Id
+    private String id;
+
+    private String jobName;
+    private String runId;
+    private LocalDateTime runStartedAt;
+    private int index;
+
+    private ObjectId fromUserId;
+    private ObjectId toUserId;
+
+    // The run's inputs, the same for every partition (e.g. the week's start date).
+    private Map<String, String> parameters;
+
+    private String status;
+
+    // The node working on the partition while it is RUNNING, until leaseExpiresAt unless renewed;
+    // attempts counts the claims, including the ones of owners that died.
+    private String owner;
+    private LocalDateTime leaseExpiresAt;
+    private int attempts;
+
+    // Users handled so far, and how many of them failed; lastUserId is the most recent one.
+    private long processed;
+    private long failed;
+    private ObjectId lastUserId;
+
+    // startedAt is the time of the latest claim.
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
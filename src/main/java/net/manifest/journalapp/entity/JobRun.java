@@ -0,0 +1,44 @@
+package net.manifest.journalapp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records that a run of a job finished for a given key (e.g. the weekly summaries of an ISO week),
+ * so that a job depending on it can be started by any node, even when the node that ran it is gone.
+ */
+@Document(collection = "job_runs")
+@CompoundIndex(name = "job_finished_idx", def = "{'jobName': 1, 'finishedAt': -1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobRun {
+
+    // "<jobName>:<key>"
+    @Id
+    private String id;
+
+    private String jobName;
+
+    // What the run was for, e.g. "2024-W07".
+    private String key;
+
+    // The items the run handled, e.g. the summaries written.
+    private long count;
+
+    private LocalDateTime finishedAt;
+
+    public static JobRun finished(String jobName, String key, long count) {
+        return new JobRun(idOf(jobName, key), jobName, key, count, LocalDateTime.now());
+    }
+
+    public static String idOf(String jobName, String key) {
+        return jobName + ":" + key;
+    }
+}
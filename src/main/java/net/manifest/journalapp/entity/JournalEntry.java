@@ -12,6 +12,8 @@ import net.manifest.journalapp.utils.journalutils.RatingStats;
 import net.manifest.journalapp.utils.journalutils.Weather;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -20,7 +22,22 @@ import java.util.ArrayList;
 import java.util.List;
 
 
+/**
+ * The compound indexes mirror the query shapes of the timeline, tag filter and public feed
+ * endpoints: an equality prefix followed by the (createdAt, _id) sort key, so both the Page
+ * and the keyset (cursor) variants are served from the index without an in-memory sort.
+ * weekly_summary_idx covers the weekly summary aggregation (a createdAt range reading only
+ * userId, mood and sentiment), so it never has to fetch the entries themselves.
+ */
 @Document(collection = "journal_entries")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_tags_created_idx", def = "{'userId': 1, 'tags': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "public_created_idx", def = "{'createdAt': -1, '_id': -1}",
+                partialFilter = "{'isPublic': true}"),
+        @CompoundIndex(name = "public_tags_created_idx", def = "{'isPublic': 1, 'tags': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "weekly_summary_idx", def = "{'createdAt': -1, 'userId': 1, 'mood': 1, 'sentiment': 1}")
+})
 @Data
 @NoArgsConstructor
 public class JournalEntry {
@@ -29,11 +46,10 @@ public class JournalEntry {
     private ObjectId id;
 
     /**
-     * The ID of the User who owns this entry. This is the most critical index for data retrieval,
+     * The ID of the User who owns this entry. It leads the 'user_created_idx' compound index,
      * ensuring fast lookups of a user's entries.
      */
     @NonNull
-    @Indexed
     private ObjectId userId;
 
     @NotBlank(message = "Title is required.")
@@ -53,6 +69,16 @@ public class JournalEntry {
     //This is only populated if the user has `sentimentAnalysisEnabled` set to true.
     private Sentiment sentiment;
 
+    /**
+     * Set while the sentiment is waiting to be (re)computed by the SentimentAnalysisWorker
+     * (async mode only). The sparse index keeps the worker's sweep cheap.
+     */
+    @Indexed(sparse = true)
+    private LocalDateTime sentimentRequestedAt;
+
+    // The version of the sentiment lexicon that computed 'sentiment'; null if scored before lexicons were versioned.
+    private Integer lexiconVersion;
+
     /**
      * A list of user-defined tags for categorizing the entry. Indexed for fast filtering.
      * Examples: ["work", "gratitude", "travel", "project-alpha", "family-event"]
@@ -63,6 +89,17 @@ public class JournalEntry {
     // --- Sharing & Interaction ---
     private boolean isPublic = false;
     private RatingStats ratingStats = new RatingStats();
+
+    /**
+     * Comments live in the bucketed 'journal_comments' collection (see CommentBucket);
+     * only their count is kept here so feeds can show it without loading them.
+     */
+    private int commentCount = 0;
+
+    /**
+     * Legacy embedded comments. No longer written; entries that still have them
+     * are migrated into 'journal_comments' on startup.
+     */
     private List<Comment> comments = new ArrayList<>();
 
     // --- Rich Context (Optional) ---
@@ -0,0 +1,32 @@
+package net.manifest.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One user's rating of a public journal entry. The unique (journalId, userId) index is what lets
+ * each user rate an entry only once; the entry itself only keeps the running sum and count
+ * (RatingStats), so it does not grow with its number of raters.
+ */
+@Document(collection = "journal_ratings")
+@CompoundIndex(name = "journal_user_idx", def = "{'journalId': 1, 'userId': 1}", unique = true)
+@Data
+@NoArgsConstructor
+public class JournalRating {
+
+    @Id
+    private ObjectId id;
+
+    private ObjectId journalId;
+    private ObjectId userId;
+
+    private int rating;
+
+    private LocalDateTime createdAt;
+}
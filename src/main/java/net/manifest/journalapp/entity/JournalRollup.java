@@ -0,0 +1,57 @@
+package net.manifest.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.RollupPeriod;
+import net.manifest.journalapp.enums.Sentiment;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A user's journaling activity over one day or one ISO week, kept up to date with atomic $inc
+ * updates on every write of a journal entry (see JournalRollupService), so that current stats
+ * can be read with a single lookup instead of scanning the entries.
+ * <p>
+ * The id is derived from the user, period and period key ("userId:WEEK:2026-W42"), which makes
+ * every increment an upsert on the _id index. Entries without a mood or a sentiment (e.g. still
+ * pending analysis) count towards entryCount only.
+ */
+@Document(collection = "journal_rollups")
+@CompoundIndex(name = "user_period_start_idx", def = "{'userId': 1, 'period': 1, 'periodStart': -1}")
+@Data
+@NoArgsConstructor
+public class JournalRollup {
+
+    @Id
+    private String id;
+
+    private ObjectId userId;
+    private RollupPeriod period;
+    private String periodKey;
+    private LocalDate periodStart;
+
+    private int entryCount;
+
+    private long moodScoreSum;
+    private int moodCount;
+    private long sentimentScoreSum;
+    private int sentimentCount;
+
+    // Histograms keyed by enum name; a key may hold 0 once its last entry changed or was deleted.
+    private Map<Mood, Integer> moodCounts = new EnumMap<>(Mood.class);
+    private Map<Sentiment, Integer> sentimentCounts = new EnumMap<>(Sentiment.class);
+
+    private LocalDateTime updatedAt;
+
+    public static String idOf(ObjectId userId, RollupPeriod period, LocalDate date) {
+        return userId.toHexString() + ":" + period.name() + ":" + period.keyOf(date);
+    }
+}
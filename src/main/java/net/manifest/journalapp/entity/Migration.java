@@ -0,0 +1,26 @@
+package net.manifest.journalapp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a one-off data migration as done, so that it is not run (and its collection scanned)
+ * again on every startup.
+ */
+@Document(collection = "migrations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Migration {
+
+    // The migration's name, e.g. "rating-sums".
+    @Id
+    private String name;
+
+    private LocalDateTime appliedAt;
+}
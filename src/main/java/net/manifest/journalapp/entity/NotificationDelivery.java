@@ -0,0 +1,46 @@
+package net.manifest.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * The delivery ledger of the weekly sentiment emails: one document per user and ISO week.
+ * A sender claims the document before talking to SMTP and marks it SENT afterwards, so Kafka
+ * redeliveries, retries and concurrent consumers send each weekly email at most once.
+ */
+@Document(collection = "notification_deliveries")
+@Data
+@NoArgsConstructor
+public class NotificationDelivery {
+
+    public static final String SENDING = "SENDING";
+    public static final String SENT = "SENT";
+
+    // "<userId>:<isoWeek>", the same key as the outbox event the email comes from.
+    @Id
+    private String id;
+
+    private ObjectId userId;
+    private String isoWeek;
+
+    private String status;
+
+    // The sender working on the email, until claimedUntil; if it dies, another may claim it after that.
+    private String claimedBy;
+    private LocalDateTime claimedUntil;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+
+    /**
+     * The ledger only has to outlive the redeliveries of a week's email; the TTL index removes it afterwards.
+     */
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+}
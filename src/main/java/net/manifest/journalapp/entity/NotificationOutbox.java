@@ -0,0 +1,59 @@
+package net.manifest.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.manifest.journalapp.model.SentimentData;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification event waiting to be published to Kafka. The weekly notification job only writes
+ * these (see SentimentNotificationProducer); NotificationOutboxRelay publishes them in batches and
+ * retries the failed ones with backoff, so the job does not depend on the broker being up.
+ */
+@Document(collection = "notification_outbox")
+@CompoundIndex(name = "relay_idx", def = "{'status': 1, 'nextAttemptAt': 1}")
+@Data
+@NoArgsConstructor
+public class NotificationOutbox {
+
+    public static final String PENDING = "PENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+
+    // "<userId>:<isoWeek>": one notification per user and week, however often the job runs.
+    @Id
+    private String id;
+
+    private ObjectId userId;
+    private String isoWeek;
+    private String topic;
+    private SentimentData payload;
+
+    private String status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+
+    // The relay working on the event, until claimedUntil; another relay may take it over after that.
+    private String claimedBy;
+    private LocalDateTime claimedUntil;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+
+    /**
+     * Set once the event is sent or has failed for good; the TTL index lets MongoDB remove it then.
+     */
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+
+    public static String idOf(ObjectId userId, String isoWeek) {
+        return userId.toHexString() + ":" + isoWeek;
+    }
+}
@@ -0,0 +1,36 @@
+package net.manifest.journalapp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Records that every token issued to a user before 'revokedAt' must be rejected,
+ * e.g. after a ban, a role change or a password change.
+ * Each node keeps these in memory (TokenRevocationService) so that stateless JWT
+ * authentication can honour them without a database lookup per request.
+ */
+@Document(collection = "token_revocations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+
+    @Id
+    private String userId;
+
+    @Indexed
+    private Instant revokedAt;
+
+    /**
+     * Once every token that could have been issued before 'revokedAt' has expired,
+     * the record is useless; the TTL index lets MongoDB remove it.
+     */
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
@@ -3,12 +3,15 @@ package net.manifest.journalapp.entity;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import net.manifest.journalapp.enums.AccountStatus;
 import net.manifest.journalapp.enums.Role;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
@@ -19,13 +22,19 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Document(collection = "users")
+// Serves the selection of the users who get the weekly sentiment report, in id order.
+@CompoundIndex(name = "sa_eligible_idx", def = "{'sentimentAnalysisEnabled': 1, 'emailValid': 1, '_id': 1}")
 @Data
 @NoArgsConstructor
 public class User implements UserDetails{
 
+    public static final String EMAIL_REGEX = "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(EMAIL_REGEX);
+
     @Id
     private ObjectId id;
 
@@ -42,6 +51,11 @@ public class User implements UserDetails{
     @Email
     private String email;
 
+    // Whether the email can be mailed to; kept up to date by setEmail, so jobs don't regex-match every user.
+    @Setter(AccessLevel.NONE)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private boolean emailValid;
+
     @NotBlank
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
@@ -55,6 +69,11 @@ public class User implements UserDetails{
     private LocalDateTime lastLoginAt;
 
 
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailValid = email != null && EMAIL_PATTERN.matcher(email).matches();
+    }
+
     //USER DETAILS IMPL
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
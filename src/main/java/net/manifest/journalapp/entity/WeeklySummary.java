@@ -24,7 +24,8 @@ public class WeeklySummary {
     @Id
     private ObjectId id;
 
-    @Indexed
+    // Unique: the weekly aggregation $merges its results into this collection on userId.
+    @Indexed(unique = true)
     private ObjectId userId;
 
     // --- Mood-Based Metrics ---
@@ -0,0 +1,30 @@
+package net.manifest.journalapp.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+
+/**
+ * The periods journal activity is rolled up by: calendar days and ISO weeks (Monday to Sunday).
+ */
+public enum RollupPeriod {
+    DAY,
+    WEEK;
+
+    /**
+     * @return The first day of the period containing the given date.
+     */
+    public LocalDate startOf(LocalDate date) {
+        return this == WEEK ? date.with(DayOfWeek.MONDAY) : date;
+    }
+
+    /**
+     * @return The period's key, e.g. "2026-10-18" for a day or "2026-W42" for an ISO week.
+     */
+    public String keyOf(LocalDate date) {
+        if (this == DAY) {
+            return date.toString();
+        }
+        return String.format("%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
+}
@@ -4,9 +4,17 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.enums.AccountStatus;
+import net.manifest.journalapp.model.AuthenticatedUser;
+import net.manifest.journalapp.model.JwtClaims;
+import net.manifest.journalapp.services.TokenRevocationService;
 import net.manifest.journalapp.utils.JwtUtils;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,6 +23,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
@@ -25,35 +34,46 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    /**
+     * When enabled, tokens carrying the user id, roles and account status claims are trusted
+     * without loading the user from MongoDB. Older tokens without those claims still fall back
+     * to a database lookup.
+     */
+    @Value("${jwt.stateless.enabled:true}")
+    private boolean statelessEnabled;
+
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
+        JwtClaims claims = null;
 
         // 1. Check if the Authorization header is present and correctly formatted.
+        //    The signature and expiry are verified here, in a single parse of the token.
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
+            String token = authHeader.substring(7);
             try{
-                username = jwtUtils.extractUsername(token);
+                claims = jwtUtils.verifyToken(token);
             } catch (Exception e) {
                 // Handle exceptions for expired or invalid tokens
                 logger.warn("JWT token processing error: " + e.getMessage());
             }
         }
 
-        // 2. If we have a username and there's no existing authentication in the context...
-        if(username != null  && SecurityContextHolder.getContext().getAuthentication() == null){
-            // ...load the user's details from the database.
+        // 2. If we have a verified token and there's no existing authentication in the context...
+        if(claims != null && claims.getUsername() != null && SecurityContextHolder.getContext().getAuthentication() == null){
+            AuthenticatedUser principal = (statelessEnabled && claims.getUserId() != null)
+                    ? principalFromClaims(claims)        // ...trust the signed claims, or
+                    : principalFromDatabase(claims);     // ...load the user's details from the database.
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            Boolean isValidToken = jwtUtils.validateToken(token);
-            if(Boolean.TRUE.equals(isValidToken)){
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        userDetails.getAuthorities());
+                        principal.getAuthorities());
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(auth);
             }
@@ -62,4 +82,27 @@ public class JwtFilter extends OncePerRequestFilter {
         // 4. Continue the filter chain for the next filter to process.
         filterChain.doFilter(request,response);
     }
+
+    private AuthenticatedUser principalFromClaims(JwtClaims claims) {
+        if (!AccountStatus.ACTIVE.name().equals(claims.getAccountStatus())) {
+            logger.warn("Rejected token of inactive account: " + claims.getUsername());
+            return null;
+        }
+        if (tokenRevocationService.isRevoked(claims.getUserId(), claims.getIssuedAt(), claims.isIssuedAtInMillis())) {
+            logger.warn("Rejected revoked token of user: " + claims.getUsername());
+            return null;
+        }
+        List<SimpleGrantedAuthority> authorities = claims.getRoles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+        return new AuthenticatedUser(new ObjectId(claims.getUserId()), claims.getUsername(), authorities);
+    }
+
+    private AuthenticatedUser principalFromDatabase(JwtClaims claims) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getUsername());
+        if (!(userDetails instanceof User user) || !user.isEnabled()) {
+            return null;
+        }
+        return AuthenticatedUser.from(user);
+    }
 }
@@ -1,8 +1,17 @@
 package net.manifest.journalapp.mapper;
 
+import net.manifest.journalapp.dto.journal.CommentResponseDTO;
 import net.manifest.journalapp.dto.journal.JournalEntryDTO;
+import net.manifest.journalapp.dto.journal.JournalRollupDTO;
 import net.manifest.journalapp.dto.journal.JournalResponseDTO;
 import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.entity.JournalRollup;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.utils.journalutils.Comment;
+
+import java.util.EnumMap;
+import java.util.Map;
 
 
 public class JournalMapper {
@@ -18,6 +27,7 @@ public class JournalMapper {
                   entry.getMood(),
                   entry.getTags(),
                   entry.getRatingStats(),
+                  entry.getCommentCount(),
                   entry.getLocation(),
                   entry.getWeather()
           );
@@ -40,4 +50,53 @@ public class JournalMapper {
     }
 
 
+    public static CommentResponseDTO toCommentDTO(Comment comment) {
+        return new CommentResponseDTO(
+                comment.getUserId() != null ? comment.getUserId().toHexString() : null,
+                comment.getUsername(),
+                comment.getText(),
+                comment.getCreatedAt()
+        );
+    }
+
+    public static JournalRollupDTO toRollupDTO(JournalRollup rollup) {
+        Map<Mood, Integer> moodCounts = nonZero(rollup.getMoodCounts(), Mood.class);
+        Map<Sentiment, Integer> sentimentCounts = nonZero(rollup.getSentimentCounts(), Sentiment.class);
+        return new JournalRollupDTO(
+                rollup.getPeriod(),
+                rollup.getPeriodKey(),
+                rollup.getPeriodStart(),
+                rollup.getEntryCount(),
+                rollup.getMoodCount() > 0 ? (double) rollup.getMoodScoreSum() / rollup.getMoodCount() : 0.0,
+                mostFrequent(moodCounts, Mood.MEH),
+                rollup.getSentimentCount() > 0 ? (double) rollup.getSentimentScoreSum() / rollup.getSentimentCount() : 0.0,
+                mostFrequent(sentimentCounts, Sentiment.NEUTRAL),
+                moodCounts,
+                sentimentCounts
+        );
+    }
+
+    private static <E extends Enum<E>> Map<E, Integer> nonZero(Map<E, Integer> counts, Class<E> type) {
+        Map<E, Integer> result = new EnumMap<>(type);
+        if (counts != null) {
+            counts.forEach((key, count) -> {
+                if (count != null && count > 0) {
+                    result.put(key, count);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static <E extends Enum<E>> E mostFrequent(Map<E, Integer> counts, E fallback) {
+        E dominant = fallback;
+        int maxCount = 0;
+        for (Map.Entry<E, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > maxCount) {
+                maxCount = entry.getValue();
+                dominant = entry.getKey();
+            }
+        }
+        return dominant;
+    }
 }
@@ -0,0 +1,37 @@
+package net.manifest.journalapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.manifest.journalapp.entity.User;
+import org.bson.types.ObjectId;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * A lightweight security principal built from the signed claims of a JWT.
+ * Controllers and services use it for ownership checks instead of loading the
+ * full User document from MongoDB on every request.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser implements AuthenticatedPrincipal {
+
+    private final ObjectId id;
+    private final String username;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    /**
+     * Builds the principal from an already loaded User entity
+     * (the database fallback path and HTTP Basic logins).
+     */
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getAuthorities());
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
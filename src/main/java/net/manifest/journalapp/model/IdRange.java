@@ -0,0 +1,10 @@
+package net.manifest.journalapp.model;
+
+import org.bson.types.ObjectId;
+
+/**
+ * A half-open range of document ids, [from, to). A null bound is open, so a list of ranges
+ * whose first 'from' and last 'to' are null covers every id.
+ */
+public record IdRange(ObjectId from, ObjectId to) {
+}
@@ -0,0 +1,25 @@
+package net.manifest.journalapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The verified contents of a JWT, produced by a single parse in JwtUtils.verifyToken.
+ * Everything the JwtFilter needs is read from here, so the token is never parsed twice.
+ * userId and accountStatus are null for tokens issued before they were added as claims, and
+ * issuedAt is only precise to the second for tokens issued before the 'iat_ms' claim.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtClaims {
+    private final String username;
+    private final String userId;
+    private final String accountStatus;
+    private final Date issuedAt;
+    private final boolean issuedAtInMillis;
+    private final Date expiration;
+    private final List<String> roles;
+}
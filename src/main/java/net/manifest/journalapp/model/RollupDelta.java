@@ -0,0 +1,64 @@
+package net.manifest.journalapp.model;
+
+import lombok.Getter;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.Sentiment;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The change a single write makes to the day and week rollups of one user: the $inc amount of
+ * every rollup field it touches. Opposite changes to the same field cancel out, so an edit that
+ * keeps the mood and sentiment produces an empty delta and no write at all.
+ */
+@Getter
+public class RollupDelta {
+
+    private final ObjectId userId;
+    private final LocalDate day;
+    private final Map<String, Long> increments = new LinkedHashMap<>();
+
+    public RollupDelta(ObjectId userId, LocalDate day) {
+        this.userId = userId;
+        this.day = day;
+    }
+
+    public RollupDelta entries(int sign) {
+        return add("entryCount", sign);
+    }
+
+    public RollupDelta mood(Mood mood, int sign) {
+        if (mood != null) {
+            add("moodScoreSum", (long) sign * mood.getScore());
+            add("moodCount", sign);
+            add("moodCounts." + mood.name(), sign);
+        }
+        return this;
+    }
+
+    public RollupDelta sentiment(Sentiment sentiment, int sign) {
+        if (sentiment != null) {
+            add("sentimentScoreSum", (long) sign * sentiment.getScore());
+            add("sentimentCount", sign);
+            add("sentimentCounts." + sentiment.name(), sign);
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return increments.isEmpty();
+    }
+
+    private RollupDelta add(String field, long amount) {
+        long total = increments.getOrDefault(field, 0L) + amount;
+        if (total == 0) {
+            increments.remove(field);
+        } else {
+            increments.put(field, total);
+        }
+        return this;
+    }
+}
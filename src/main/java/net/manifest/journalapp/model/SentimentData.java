@@ -9,6 +9,9 @@ import net.manifest.journalapp.enums.Sentiment;
 @NoArgsConstructor
 @AllArgsConstructor
 public class SentimentData {
+    // The delivery key: one weekly email per user and ISO week (see NotificationDeliveryLedger).
+    private String userId;
+    private String isoWeek;
     private String email;
     private String userName;
     // --- ENHANCED FIELDS ---
@@ -0,0 +1,18 @@
+package net.manifest.journalapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.manifest.journalapp.entity.User;
+import org.bson.types.ObjectId;
+
+/**
+ * Published whenever a user document is written or deleted, so in-process caches can drop it.
+ * 'user' is the state known before the change, or null when only the id is known
+ * (e.g. a revocation picked up from another node).
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+    private final ObjectId userId;
+    private final User user;
+}
@@ -0,0 +1,19 @@
+package net.manifest.journalapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when the weekly summary job has finished writing weekly_summaries, so that the
+ * notification job can start as soon as they are ready instead of at a fixed time.
+ */
+@Getter
+@AllArgsConstructor
+public class WeeklySummariesGeneratedEvent {
+    private final LocalDateTime weekStart;
+    // The ISO week summarized, e.g. "2024-W07".
+    private final String week;
+    private final long summaries;
+}
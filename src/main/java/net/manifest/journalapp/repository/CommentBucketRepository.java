@@ -0,0 +1,24 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.CommentBucket;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CommentBucketRepository extends MongoRepository<CommentBucket, ObjectId> {
+
+    /**
+     * Finds the buckets of an entry starting at the given bucket number, in reading order.
+     * The pageable only limits and sorts the buckets; use Sort by "seq" ascending.
+     */
+    List<CommentBucket> findByJournalIdAndSeqGreaterThanEqual(ObjectId journalId, int fromSeq, Pageable pageable);
+
+    List<CommentBucket> findByJournalId(ObjectId journalId, Pageable pageable);
+
+    void deleteByJournalId(ObjectId journalId);
+
+    void deleteByJournalIdIn(Collection<ObjectId> journalIds);
+}
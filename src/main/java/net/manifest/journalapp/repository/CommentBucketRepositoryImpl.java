@@ -0,0 +1,126 @@
+package net.manifest.journalapp.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import net.manifest.journalapp.entity.CommentBucket;
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.utils.journalutils.Comment;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Appends comments to the bucketed 'journal_comments' collection and keeps the
+ * denormalised commentCount on the journal entry in step.
+ */
+@Repository
+public class CommentBucketRepositoryImpl {
+
+    // Each attempt only fails because another writer filled or opened the bucket meanwhile.
+    private static final int MAX_APPEND_ATTEMPTS = 10;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Counts a comment that was appended to the entry's buckets.
+     * @return false if the entry no longer exists.
+     */
+    public boolean incrementCommentCount(ObjectId journalId) {
+        Query query = new Query(Criteria.where("_id").is(journalId));
+        UpdateResult result = mongoTemplate.updateFirst(query, new Update().inc("commentCount", 1), JournalEntry.class);
+        return result.getMatchedCount() > 0;
+    }
+
+    /**
+     * Appends the comment to the entry's newest bucket with a single conditional push, or opens
+     * the next bucket when the newest one is full. Only one writer can open a given bucket number
+     * (unique journalId + seq), so concurrent writers never end up in parallel buckets.
+     */
+    public void appendComment(ObjectId journalId, Comment comment) {
+        for (int attempt = 0; attempt < MAX_APPEND_ATTEMPTS; attempt++) {
+            CommentBucket newest = findNewest(journalId);
+            if (newest != null && newest.getCount() < CommentBucket.BUCKET_SIZE) {
+                Query query = new Query(Criteria.where("_id").is(newest.getId())
+                        .and("count").lt(CommentBucket.BUCKET_SIZE));
+                Update update = new Update()
+                        .push("comments", comment)
+                        .inc("count", 1);
+                if (mongoTemplate.updateFirst(query, update, CommentBucket.class).getMatchedCount() > 0) {
+                    return;
+                }
+                // Filled up by another writer meanwhile.
+                continue;
+            }
+            CommentBucket bucket = new CommentBucket();
+            bucket.setJournalId(journalId);
+            bucket.setSeq(newest == null ? 0 : newest.getSeq() + 1);
+            bucket.setCount(1);
+            bucket.setComments(new ArrayList<>(List.of(comment)));
+            bucket.setCreatedAt(LocalDateTime.now());
+            try {
+                mongoTemplate.insert(bucket);
+                return;
+            } catch (DuplicateKeyException e) {
+                // Another writer opened this bucket first: append to it instead.
+            }
+        }
+        throw new IllegalStateException("Could not append a comment to journal entry " + journalId + " under contention.");
+    }
+
+    private CommentBucket findNewest(ObjectId journalId) {
+        Query query = new Query(Criteria.where("journalId").is(journalId))
+                .with(Sort.by(Sort.Direction.DESC, "seq"))
+                .limit(1);
+        query.fields().include("_id", "seq", "count");
+        return mongoTemplate.findOne(query, CommentBucket.class);
+    }
+
+    /**
+     * Moves comments that are still embedded in journal entries into buckets and removes them
+     * from the entries. The buckets are upserted on their deterministic (journalId, seq), with
+     * negative numbers since these comments precede any bucketed ones, and the entry is only
+     * updated while it still has the embedded comments; an interrupted run can simply run again.
+     * @return The number of entries migrated.
+     */
+    public long migrateEmbeddedComments() {
+        Query query = new Query(Criteria.where("comments.0").exists(true));
+        query.fields().include("_id", "comments");
+        long migrated = 0;
+        try (Stream<JournalEntry> entries = mongoTemplate.stream(query, JournalEntry.class)) {
+            for (JournalEntry entry : (Iterable<JournalEntry>) entries::iterator) {
+                List<Comment> comments = entry.getComments();
+                int chunks = (comments.size() + CommentBucket.BUCKET_SIZE - 1) / CommentBucket.BUCKET_SIZE;
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    int from = chunk * CommentBucket.BUCKET_SIZE;
+                    List<Comment> chunkComments = comments.subList(from, Math.min(from + CommentBucket.BUCKET_SIZE, comments.size()));
+                    Query bucketQuery = new Query(Criteria.where("journalId").is(entry.getId()).and("seq").is(chunk - chunks));
+                    Update update = new Update()
+                            .setOnInsert("count", chunkComments.size())
+                            .setOnInsert("comments", new ArrayList<>(chunkComments))
+                            .setOnInsert("createdAt", LocalDateTime.now());
+                    try {
+                        mongoTemplate.upsert(bucketQuery, update, CommentBucket.class);
+                    } catch (DuplicateKeyException e) {
+                        // Inserted concurrently by another node migrating the same entry.
+                    }
+                }
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(entry.getId()).and("comments.0").exists(true)),
+                        new Update().inc("commentCount", comments.size()).unset("comments"),
+                        JournalEntry.class);
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,11 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.ConfigSentimentLexiconEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface ConfigSentimentLexiconRepository extends MongoRepository<ConfigSentimentLexiconEntity, Integer> {
+
+    Optional<ConfigSentimentLexiconEntity> findTopByOrderByVersionDesc();
+}
@@ -0,0 +1,7 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JobCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface JobCheckpointRepository extends MongoRepository<JobCheckpoint, String> {
+}
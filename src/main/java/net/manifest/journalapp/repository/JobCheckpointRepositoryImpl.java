@@ -0,0 +1,50 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JobCheckpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public class JobCheckpointRepositoryImpl {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Claims a job's checkpoint for the owner until 'claimedUntil', in a single atomic upsert, unless
+     * another owner is running the job under a claim that has not expired yet.
+     * @return false if another owner holds the job.
+     */
+    public boolean claim(String jobName, String owner, LocalDateTime now, LocalDateTime claimedUntil) {
+        Query query = new Query(Criteria.where("_id").is(jobName).orOperator(
+                Criteria.where("status").ne(JobCheckpoint.RUNNING),
+                Criteria.where("owner").is(owner),
+                Criteria.where("claimedUntil").lte(now)));
+        Update update = new Update()
+                .set("owner", owner)
+                .set("claimedUntil", claimedUntil);
+        try {
+            mongoTemplate.upsert(query, update, JobCheckpoint.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // The job is running elsewhere: the query matched nothing and the insert hit its _id.
+            return false;
+        }
+    }
+
+    /**
+     * Saves the checkpoint, provided its owner still holds the job.
+     * @return false if another owner claimed the job meanwhile, in which case nothing was written.
+     */
+    public boolean saveOwned(JobCheckpoint checkpoint) {
+        Query query = new Query(Criteria.where("_id").is(checkpoint.getJobName()).and("owner").is(checkpoint.getOwner()));
+        return mongoTemplate.findAndReplace(query, checkpoint) != null;
+    }
+}
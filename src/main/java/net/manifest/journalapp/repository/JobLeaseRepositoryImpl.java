@@ -0,0 +1,49 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JobLease;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public class JobLeaseRepositoryImpl {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Takes the lease in a single atomic upsert when it does not exist yet, has expired, or is
+     * already held by the same owner.
+     * @return true if the owner now holds the lease until 'until'.
+     */
+    public boolean tryAcquire(String name, String owner, LocalDateTime now, LocalDateTime until) {
+        Query query = new Query(Criteria.where("_id").is(name)
+                .orOperator(Criteria.where("expiresAt").lte(now), Criteria.where("owner").is(owner)));
+        Update update = new Update()
+                .set("owner", owner)
+                .set("acquiredAt", now)
+                .set("expiresAt", until);
+        try {
+            mongoTemplate.upsert(query, update, JobLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Held by another node: the query matched nothing and the insert hit the existing _id.
+            return false;
+        }
+    }
+
+    /**
+     * Moves the expiry of a lease the owner still holds.
+     * @return false if the lease was taken over by another node meanwhile.
+     */
+    public boolean extend(String name, String owner, LocalDateTime until) {
+        Query query = new Query(Criteria.where("_id").is(name).and("owner").is(owner));
+        return mongoTemplate.updateFirst(query, new Update().set("expiresAt", until), JobLease.class).getMatchedCount() > 0;
+    }
+}
@@ -0,0 +1,20 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JobPartition;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface JobPartitionRepository extends MongoRepository<JobPartition, String> {
+
+    List<JobPartition> findByRunIdOrderByIndexAsc(String runId);
+
+    long countByRunIdAndStatusIn(String runId, Collection<String> statuses);
+
+    /**
+     * Finds a partition of the most recent run of a job, to look up that run's id.
+     */
+    Optional<JobPartition> findFirstByJobNameOrderByRunStartedAtDesc(String jobName);
+}
@@ -0,0 +1,96 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JobPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public class JobPartitionRepositoryImpl {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Atomically claims the oldest partition of the given jobs that is PENDING, or RUNNING under an
+     * expired lease, for the owner until 'leaseUntil'.
+     * @return The claimed partition, or null if there is none to claim.
+     */
+    public JobPartition claimNext(Collection<String> jobNames, String owner, LocalDateTime now,
+                                  LocalDateTime leaseUntil, int maxAttempts) {
+        Query query = new Query(Criteria.where("jobName").in(jobNames)
+                .and("attempts").lt(maxAttempts)
+                .orOperator(
+                        Criteria.where("status").is(JobPartition.PENDING),
+                        Criteria.where("status").is(JobPartition.RUNNING).and("leaseExpiresAt").lte(now)));
+        query.with(Sort.by(Sort.Direction.ASC, "runStartedAt", "index"));
+        Update update = new Update()
+                .set("status", JobPartition.RUNNING)
+                .set("owner", owner)
+                .set("leaseExpiresAt", leaseUntil)
+                .set("startedAt", now)
+                .set("updatedAt", now)
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), JobPartition.class);
+    }
+
+    /**
+     * Writes the progress and status of a partition and renews its lease, provided the owner still holds it.
+     * @return false if the partition was claimed by another node meanwhile.
+     */
+    public boolean saveProgress(JobPartition partition) {
+        Query query = new Query(Criteria.where("_id").is(partition.getId())
+                .and("owner").is(partition.getOwner())
+                .and("status").is(JobPartition.RUNNING));
+        Update update = new Update()
+                .set("status", partition.getStatus())
+                .set("processed", partition.getProcessed())
+                .set("failed", partition.getFailed())
+                .set("lastUserId", partition.getLastUserId())
+                .set("leaseExpiresAt", partition.getLeaseExpiresAt())
+                .set("updatedAt", partition.getUpdatedAt())
+                .set("finishedAt", partition.getFinishedAt());
+        return mongoTemplate.updateFirst(query, update, JobPartition.class).getMatchedCount() > 0;
+    }
+
+    /**
+     * Fails the partitions that used up their attempts and can no longer be claimed: RUNNING under an
+     * expired lease, or PENDING again after an interrupted last attempt. A user range that keeps
+     * bringing nodes down then does not keep its run open forever.
+     * @return The number of partitions failed.
+     */
+    public long failAbandoned(int maxAttempts, LocalDateTime now) {
+        Query query = new Query(Criteria.where("attempts").gte(maxAttempts)
+                .orOperator(
+                        Criteria.where("status").is(JobPartition.PENDING),
+                        Criteria.where("status").is(JobPartition.RUNNING).and("leaseExpiresAt").lte(now)));
+        Update update = new Update()
+                .set("status", JobPartition.FAILED)
+                .set("updatedAt", now)
+                .set("finishedAt", now);
+        return mongoTemplate.updateMulti(query, update, JobPartition.class).getModifiedCount();
+    }
+
+    /**
+     * Fails the partitions of a run that are still PENDING or RUNNING. Their owners' next progress
+     * save then finds the partition taken away and stops.
+     * @return The number of partitions failed.
+     */
+    public long failUnfinished(String runId, LocalDateTime now) {
+        Query query = new Query(Criteria.where("runId").is(runId)
+                .and("status").in(JobPartition.PENDING, JobPartition.RUNNING));
+        Update update = new Update()
+                .set("status", JobPartition.FAILED)
+                .set("updatedAt", now)
+                .set("finishedAt", now);
+        return mongoTemplate.updateMulti(query, update, JobPartition.class).getModifiedCount();
+    }
+}
@@ -0,0 +1,11 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JobRun;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface JobRunRepository extends MongoRepository<JobRun, String> {
+
+    Optional<JobRun> findFirstByJobNameOrderByFinishedAtDesc(String jobName);
+}
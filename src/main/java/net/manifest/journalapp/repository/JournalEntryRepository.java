@@ -5,6 +5,7 @@ import org.bson.types.ObjectId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,9 +18,12 @@ public interface JournalEntryRepository extends MongoRepository<JournalEntry, Ob
     Optional<JournalEntry> findByIdAndUserId(ObjectId myId, ObjectId id);
     boolean existsByIdAndUserId(ObjectId journalId, ObjectId userId);
     Page<JournalEntry>findByUserId(ObjectId userId, Pageable pageable);
+    // Feeds never show comments, so they are left out of the fetched documents.
+    @Query(value = "{ 'isPublic' : ?0 }", fields = "{ 'comments' : 0 }")
     Page<JournalEntry> findByIsPublic(boolean isPublic, Pageable pageable);
 
     Optional<JournalEntry> findByIdAndIsPublic(ObjectId journalId, boolean isPublic);
+    boolean existsByIdAndIsPublic(ObjectId journalId, boolean isPublic);
 
     // --- NEW METHOD FOR TAG FILTERING ---
 
@@ -46,6 +50,10 @@ public interface JournalEntryRepository extends MongoRepository<JournalEntry, Ob
      * @param pageable Pagination information.
      * @return A Page of matching public JournalEntry entities.
      */
+    @Query(value = "{ 'isPublic' : ?0, 'tags' : ?1 }", fields = "{ 'comments' : 0 }")
     Page<JournalEntry> findByIsPublicAndTagsContains(boolean isPublic, String tag, Pageable pageable);
+
+    @Query(value = "{ 'userId' : ?0 }", fields = "{ '_id' : 1 }")
+    List<JournalEntry> findIdsByUserId(ObjectId userId);
     List<JournalEntry> findByUserIdAndCreatedAtAfter(ObjectId userId, LocalDateTime createdAt);
 }
@@ -0,0 +1,167 @@
+package net.manifest.journalapp.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import net.manifest.journalapp.dto.journal.JournalSummaryDTO;
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.model.JournalCursor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Targeted updates and projected reads on journal entries that derived queries cannot express.
+ */
+@Repository
+public class JournalEntryRepositoryImpl {
+
+    private static final String COLLECTION = "journal_entries";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Adds a rating to the entry's running sum and count with a single atomic update, but only
+     * if the entry is public. Nothing is read first. That the user rates the entry only once is
+     * enforced by the journal_ratings collection, before this is called.
+     *
+     * @param journalId The ID of the public entry.
+     * @param rating The rating value.
+     * @return true if the rating was applied, false if the entry is missing or private.
+     */
+    public boolean addRating(ObjectId journalId, int rating) {
+        Query query = new Query(Criteria.where("_id").is(journalId)
+                .and("isPublic").is(true));
+        Update update = new Update()
+                .inc("ratingStats.ratingSum", rating)
+                .inc("ratingStats.ratingCount", 1);
+        UpdateResult result = mongoTemplate.updateFirst(query, update, JournalEntry.class);
+        return result.getMatchedCount() > 0;
+    }
+
+    /**
+     * Reads one page of entry summaries. Only the list-view fields are projected and the
+     * content preview is cut on the server, so the entry bodies never leave MongoDB.
+     * @param criteria Which entries to list.
+     * @param pageable Page, size and sort.
+     * @param previewLength The number of content characters to include; 0 for none.
+     * @return The page of summaries; 'createdBy' is left for the caller to fill in.
+     */
+    public Page<JournalSummaryDTO> findSummaries(Criteria criteria, Pageable pageable, int previewLength) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.match(criteria));
+        if (pageable.getSort().isSorted()) {
+            operations.add(Aggregation.sort(pageable.getSort()));
+        }
+        if (pageable.isPaged()) {
+            operations.add(Aggregation.skip(pageable.getOffset()));
+            operations.add(Aggregation.limit(pageable.getPageSize()));
+        }
+        operations.add(summaryProjection(previewLength));
+
+        List<JournalSummaryDTO> summaries = mongoTemplate.aggregate(
+                Aggregation.newAggregation(JournalEntry.class, operations),
+                JournalSummaryDTO.class).getMappedResults();
+        return PageableExecutionUtils.getPage(summaries, pageable,
+                () -> mongoTemplate.count(new Query(criteria), JournalEntry.class));
+    }
+
+    /**
+     * Reads the entry summaries that come after the cursor in (createdAt desc, _id desc) order.
+     * The seek condition lets MongoDB start right after the previous page instead of skipping
+     * over it, and no count query is run.
+     * @param criteria Which entries to list.
+     * @param after The last entry of the previous page, or null for the first page.
+     * @param limit The maximum number of summaries to return.
+     * @param previewLength The number of content characters to include; 0 for none.
+     * @return The summaries, newest first; 'createdBy' is left for the caller to fill in.
+     */
+    public List<JournalSummaryDTO> findSummariesAfter(Criteria criteria, JournalCursor after, int limit, int previewLength) {
+        Criteria seek = criteria;
+        if (after != null) {
+            seek = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(after.getCreatedAt()),
+                    Criteria.where("createdAt").is(after.getCreatedAt()).and("_id").lt(after.getId())));
+        }
+        TypedAggregation<JournalEntry> aggregation = Aggregation.newAggregation(JournalEntry.class,
+                Aggregation.match(seek),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "createdAt", "id")),
+                Aggregation.limit(limit),
+                summaryProjection(previewLength));
+        return mongoTemplate.aggregate(aggregation, JournalSummaryDTO.class).getMappedResults();
+    }
+
+    private static ProjectionOperation summaryProjection(int previewLength) {
+        ProjectionOperation projection = Aggregation.project(
+                "userId", "title", "createdAt", "mood", "sentiment", "tags", "ratingStats", "commentCount");
+        if (previewLength > 0) {
+            projection = projection.and(StringOperators.valueOf("content").substringCP(0, previewLength))
+                    .as("contentPreview");
+        }
+        return projection;
+    }
+
+    /**
+     * Applies a targeted update to an entry owned by the given user, in a single round trip.
+     * @param journalId The ID of the entry.
+     * @param userId The ID of the owner; entries of other users are never matched.
+     * @param update The fields to set.
+     * @return The entry as it was before the update (without comments and raters),
+     *         or null if the user owns no such entry.
+     */
+    public JournalEntry updateOwnedEntry(ObjectId journalId, ObjectId userId, Update update) {
+        Query query = new Query(Criteria.where("_id").is(journalId).and("userId").is(userId));
+        query.fields().exclude("comments");
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(false), JournalEntry.class);
+    }
+
+    /**
+     * Stores a recomputed sentiment, unless the entry's content or mood has changed
+     * again since the sentiment was computed from them.
+     * @return false if the entry changed in the meantime and nothing was stored.
+     */
+    public boolean updateSentiment(ObjectId journalId, String content, Mood mood, Sentiment sentiment, Integer lexiconVersion) {
+        Query query = new Query(Criteria.where("_id").is(journalId)
+                .and("content").is(content)
+                .and("mood").is(mood));
+        Update update = new Update().set("sentiment", sentiment).set("lexiconVersion", lexiconVersion);
+        return mongoTemplate.updateFirst(query, update, JournalEntry.class).getMatchedCount() > 0;
+    }
+
+    /**
+     * Entries rated before ratings were stored as running totals only have an average and a count.
+     * Rebuilds their sum on the server as round(averageRating * ratingCount).
+     * @return The number of entries migrated.
+     */
+    public long backfillRatingSums() {
+        Query query = new Query(Criteria.where("ratingStats.ratingSum").exists(false)
+                .and("ratingStats.ratingCount").gt(0));
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("ratingStats.ratingSum")
+                .toValue(ArithmeticOperators.Round.roundValueOf(
+                        ArithmeticOperators.Multiply.valueOf("ratingStats.averageRating")
+                                .multiplyBy("ratingStats.ratingCount")));
+        return mongoTemplate.updateMulti(query, update, COLLECTION).getModifiedCount();
+    }
+}
@@ -0,0 +1,14 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JournalRating;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+
+public interface JournalRatingRepository extends MongoRepository<JournalRating, ObjectId> {
+
+    void deleteByJournalId(ObjectId journalId);
+
+    void deleteByJournalIdIn(Collection<ObjectId> journalIds);
+}
@@ -0,0 +1,22 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JournalRollup;
+import net.manifest.journalapp.enums.RollupPeriod;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface JournalRollupRepository extends MongoRepository<JournalRollup, String> {
+
+    /**
+     * Finds a user's rollups of one period type whose period starts within [from, to].
+     */
+    @Query("{ 'userId' : ?0, 'period' : ?1, 'periodStart' : { '$gte' : ?2, '$lte' : ?3 } }")
+    List<JournalRollup> findInRange(ObjectId userId, RollupPeriod period, LocalDate from, LocalDate to, Sort sort);
+
+    void deleteByUserId(ObjectId userId);
+}
@@ -0,0 +1,163 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JournalRollup;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.RollupPeriod;
+import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.model.RollupDelta;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public class JournalRollupRepositoryImpl {
+
+    private static final String JOURNAL_COLLECTION = "journal_entries";
+    private static final String ROLLUP_COLLECTION = "journal_rollups";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Applies the deltas to the day and week rollups they fall in, creating missing rollups,
+     * with one unordered bulk of $inc upserts.
+     */
+    public void increment(List<RollupDelta> deltas) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JournalRollup.class);
+        int operations = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (RollupDelta delta : deltas) {
+            if (delta.isEmpty()) {
+                continue;
+            }
+            for (RollupPeriod period : RollupPeriod.values()) {
+                Update update = new Update()
+                        .setOnInsert("userId", delta.getUserId())
+                        .setOnInsert("period", period)
+                        .setOnInsert("periodKey", period.keyOf(delta.getDay()))
+                        .setOnInsert("periodStart", period.startOf(delta.getDay()))
+                        .set("updatedAt", now);
+                delta.getIncrements().forEach(update::inc);
+                bulk.upsert(new Query(Criteria.where("_id").is(JournalRollup.idOf(delta.getUserId(), period, delta.getDay()))), update);
+                operations++;
+            }
+        }
+        if (operations > 0) {
+            bulk.execute();
+        }
+    }
+
+    /**
+     * Recomputes every rollup from the journal entries on the server, replacing the stored ones,
+     * then removes rollups that no longer have entries and were not incremented meanwhile.
+     * Increments made to a rollup while it is being replaced can be lost; run it when writes are quiet.
+     * @return The number of rollups in the collection afterwards.
+     */
+    public long rebuildFromEntries() {
+        Date startedAt = new Date();
+        String timezone = ZoneId.systemDefault().getId();
+        rebuild(RollupPeriod.DAY, "%Y-%m-%d", "$_id.key", "%Y-%m-%d", timezone, startedAt);
+        // "%G-W%V" is the ISO week; its Monday is parsed back from "<key>-1" as "%G-W%V-%u".
+        rebuild(RollupPeriod.WEEK, "%G-W%V", new Document("$concat", List.of("$_id.key", "-1")), "%G-W%V-%u", timezone, startedAt);
+        mongoTemplate.remove(new Query(Criteria.where("updatedAt").lt(startedAt)), JournalRollup.class);
+        return mongoTemplate.estimatedCount(JournalRollup.class);
+    }
+
+    private void rebuild(RollupPeriod period, String keyFormat, Object startString, String startFormat,
+                         String timezone, Date startedAt) {
+        AggregationOperation match = context -> new Document("$match",
+                new Document("userId", new Document("$ne", null)).append("createdAt", new Document("$ne", null)));
+
+        Document group = new Document("_id", new Document("userId", "$userId")
+                .append("key", new Document("$dateToString", new Document("format", keyFormat)
+                        .append("date", "$createdAt")
+                        .append("timezone", timezone))))
+                .append("entryCount", new Document("$sum", 1))
+                .append("moodScoreSum", new Document("$sum", moodScore()))
+                .append("moodCount", new Document("$sum", countIn("$mood", Arrays.stream(Mood.values()).map(Enum::name).toList())))
+                .append("sentimentScoreSum", new Document("$sum", sentimentScore()))
+                .append("sentimentCount", new Document("$sum", countIn("$sentiment", Arrays.stream(Sentiment.values()).map(Enum::name).toList())));
+        for (Mood mood : Mood.values()) {
+            group.append("mood_" + mood.name(), new Document("$sum", countIn("$mood", List.of(mood.name()))));
+        }
+        for (Sentiment sentiment : Sentiment.values()) {
+            group.append("sentiment_" + sentiment.name(), new Document("$sum", countIn("$sentiment", List.of(sentiment.name()))));
+        }
+        AggregationOperation groupStage = context -> new Document("$group", group);
+
+        AggregationOperation project = context -> new Document("$project", new Document("_id", new Document("$concat", List.of(
+                        new Document("$toString", "$_id.userId"), ":" + period.name() + ":", "$_id.key")))
+                .append("userId", "$_id.userId")
+                .append("period", new Document("$literal", period.name()))
+                .append("periodKey", "$_id.key")
+                .append("periodStart", new Document("$dateFromString", new Document("dateString", startString)
+                        .append("format", startFormat)
+                        .append("timezone", timezone)))
+                .append("entryCount", 1)
+                .append("moodScoreSum", 1)
+                .append("moodCount", 1)
+                .append("sentimentScoreSum", 1)
+                .append("sentimentCount", 1)
+                .append("moodCounts", histogram("mood_", Arrays.stream(Mood.values()).map(Enum::name).toList()))
+                .append("sentimentCounts", histogram("sentiment_", Arrays.stream(Sentiment.values()).map(Enum::name).toList()))
+                .append("updatedAt", new Document("$literal", startedAt)));
+
+        MergeOperation merge = Aggregation.merge()
+                .intoCollection(ROLLUP_COLLECTION)
+                .on("_id")
+                .whenMatched(MergeOperation.WhenDocumentsMatch.replaceDocument())
+                .whenNotMatched(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                .build();
+
+        mongoTemplate.aggregate(
+                Aggregation.newAggregation(match, groupStage, project, merge)
+                        .withOptions(Aggregation.newAggregationOptions().allowDiskUse(true).build()),
+                JOURNAL_COLLECTION,
+                Document.class);
+    }
+
+    private static Document moodScore() {
+        List<Document> branches = new ArrayList<>();
+        for (Mood mood : Mood.values()) {
+            branches.add(new Document("case", new Document("$eq", List.of("$mood", mood.name()))).append("then", mood.getScore()));
+        }
+        return new Document("$switch", new Document("branches", branches).append("default", 0));
+    }
+
+    private static Document sentimentScore() {
+        List<Document> branches = new ArrayList<>();
+        for (Sentiment sentiment : Sentiment.values()) {
+            branches.add(new Document("case", new Document("$eq", List.of("$sentiment", sentiment.name()))).append("then", sentiment.getScore()));
+        }
+        return new Document("$switch", new Document("branches", branches).append("default", 0));
+    }
+
+    private static Document countIn(String field, List<String> names) {
+        return new Document("$cond", List.of(new Document("$in", List.of(field, names)), 1, 0));
+    }
+
+    // Builds { NAME: count } from the per-value group fields, leaving out values that never occur.
+    private static Document histogram(String prefix, List<String> names) {
+        List<Document> pairs = new ArrayList<>(names.size());
+        for (String name : names) {
+            pairs.add(new Document("k", name).append("v", "$" + prefix + name));
+        }
+        return new Document("$arrayToObject", new Document("$filter", new Document("input", pairs)
+                .append("cond", new Document("$gt", List.of("$$this.v", 0)))));
+    }
+}
@@ -0,0 +1,7 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.Migration;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface MigrationRepository extends MongoRepository<Migration, String> {
+}
@@ -0,0 +1,86 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.NotificationDelivery;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Repository
+public class NotificationDeliveryRepositoryImpl {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Claims a delivery in a single atomic upsert when it is not in the ledger yet, or when an
+     * earlier claim on it expired without the email being marked sent.
+     * @return false if the email was already sent or another sender holds the claim.
+     */
+    public boolean tryClaim(String id, ObjectId userId, String isoWeek, String claimedBy,
+                            LocalDateTime now, LocalDateTime claimedUntil, LocalDateTime expiresAt) {
+        Query query = new Query(Criteria.where("_id").is(id)
+                .and("status").is(NotificationDelivery.SENDING)
+                .and("claimedUntil").lte(now));
+        Update update = new Update()
+                .set("status", NotificationDelivery.SENDING)
+                .set("claimedBy", claimedBy)
+                .set("claimedUntil", claimedUntil)
+                .set("expiresAt", expiresAt)
+                .setOnInsert("userId", userId)
+                .setOnInsert("isoWeek", isoWeek)
+                .setOnInsert("createdAt", now);
+        try {
+            mongoTemplate.upsert(query, update, NotificationDelivery.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Sent or claimed: the query matched nothing and the insert hit the existing _id.
+            return false;
+        }
+    }
+
+    /**
+     * Marks a delivery sent, if the sender still holds its claim.
+     * @return false if the claim expired and was taken over meanwhile.
+     */
+    public boolean markSent(String id, String claimedBy, LocalDateTime now, LocalDateTime expiresAt) {
+        Query query = new Query(Criteria.where("_id").is(id).and("claimedBy").is(claimedBy));
+        Update update = new Update()
+                .set("status", NotificationDelivery.SENT)
+                .set("sentAt", now)
+                .set("expiresAt", expiresAt)
+                .unset("claimedBy")
+                .unset("claimedUntil");
+        return mongoTemplate.updateFirst(query, update, NotificationDelivery.class).getMatchedCount() > 0;
+    }
+
+    /**
+     * Drops a claim whose email failed, so that the retry can claim it again at once.
+     */
+    public void release(String id, String claimedBy) {
+        Query query = new Query(Criteria.where("_id").is(id)
+                .and("claimedBy").is(claimedBy)
+                .and("status").is(NotificationDelivery.SENDING));
+        mongoTemplate.remove(query, NotificationDelivery.class);
+    }
+
+    /**
+     * @return Those of the ids whose email was sent, in one query on _id.
+     */
+    public Set<String> findSentIds(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids).and("status").is(NotificationDelivery.SENT));
+        query.fields().include("_id");
+        List<NotificationDelivery> sent = mongoTemplate.find(query, NotificationDelivery.class);
+        return sent.stream().map(NotificationDelivery::getId).collect(Collectors.toSet());
+    }
+}
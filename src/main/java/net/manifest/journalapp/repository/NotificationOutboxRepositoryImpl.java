@@ -0,0 +1,102 @@
+package net.manifest.journalapp.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import net.manifest.journalapp.entity.NotificationOutbox;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class NotificationOutboxRepositoryImpl {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Adds the events with one unordered bulk of upserts that only set fields on insert, so an
+     * event already in the outbox for the same user and week is left as it is.
+     * @return The number of events that were new.
+     */
+    public int addAll(List<NotificationOutbox> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationOutbox.class);
+        for (NotificationOutbox event : events) {
+            Update update = new Update()
+                    .setOnInsert("userId", event.getUserId())
+                    .setOnInsert("isoWeek", event.getIsoWeek())
+                    .setOnInsert("topic", event.getTopic())
+                    .setOnInsert("payload", event.getPayload())
+                    .setOnInsert("status", NotificationOutbox.PENDING)
+                    .setOnInsert("attempts", 0)
+                    .setOnInsert("nextAttemptAt", event.getCreatedAt())
+                    .setOnInsert("createdAt", event.getCreatedAt());
+            bulk.upsert(new Query(Criteria.where("_id").is(event.getId())), update);
+        }
+        BulkWriteResult result = bulk.execute();
+        return result.getUpserts().size();
+    }
+
+    /**
+     * Claims up to 'limit' due events for one relay pass: the oldest PENDING events whose next
+     * attempt is due and that no other relay holds.
+     * @param claimedBy A token unique to this pass.
+     * @return The events claimed with the token.
+     */
+    public List<NotificationOutbox> claimDue(String claimedBy, LocalDateTime now, LocalDateTime claimedUntil, int limit) {
+        Criteria due = Criteria.where("status").is(NotificationOutbox.PENDING)
+                .and("nextAttemptAt").lte(now)
+                .orOperator(Criteria.where("claimedUntil").is(null), Criteria.where("claimedUntil").lte(now));
+        Query candidates = new Query(due).with(Sort.by(Sort.Direction.ASC, "nextAttemptAt")).limit(limit);
+        candidates.fields().include("_id");
+        List<Object> ids = mongoTemplate.find(candidates, NotificationOutbox.class).stream()
+                .map(event -> (Object) event.getId())
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // The same condition again, so events another relay claimed in between are left out.
+        Query claim = new Query(Criteria.where("_id").in(ids)).addCriteria(due);
+        mongoTemplate.updateMulti(claim, new Update().set("claimedBy", claimedBy).set("claimedUntil", claimedUntil), NotificationOutbox.class);
+        return mongoTemplate.find(new Query(Criteria.where("_id").in(ids).and("claimedBy").is(claimedBy)), NotificationOutbox.class);
+    }
+
+    /**
+     * Records the outcome of a relay pass in one unordered bulk.
+     * @param sent The ids of the events Kafka acknowledged.
+     * @param failures The updates of the events that failed, by id (next attempt or FAILED).
+     */
+    public void complete(List<String> sent, Map<String, Update> failures, LocalDateTime now, LocalDateTime expiresAt) {
+        if (sent.isEmpty() && failures.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationOutbox.class);
+        if (!sent.isEmpty()) {
+            bulk.updateMulti(new Query(Criteria.where("_id").in(sent)), new Update()
+                    .set("status", NotificationOutbox.SENT)
+                    .set("sentAt", now)
+                    .set("expiresAt", expiresAt)
+                    .unset("claimedBy")
+                    .unset("claimedUntil"));
+        }
+        failures.forEach((id, update) -> bulk.updateOne(new Query(Criteria.where("_id").is(id)), update));
+        bulk.execute();
+    }
+
+    /**
+     * @return The number of events in the status.
+     */
+    public long countByStatus(String status) {
+        return mongoTemplate.count(new Query(Criteria.where("status").is(status)), NotificationOutbox.class);
+    }
+}
@@ -0,0 +1,16 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.TokenRevocation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TokenRevocationRepository extends MongoRepository<TokenRevocation, String> {
+
+    /**
+     * Finds revocations recorded after the given instant. Used by every node to
+     * pick up bans and credential changes made on other nodes.
+     */
+    List<TokenRevocation> findByRevokedAtAfter(Instant since);
+}
@@ -1,18 +1,29 @@
 package net.manifest.journalapp.repository;
 
 import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.model.IdRange;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public class UserRepositoryImpl {
 
-    private static final String EMAIL_REGEX = "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
+    // Users read per round trip by the streaming cursors.
+    private static final int CURSOR_BATCH_SIZE = 500;
 
     @Autowired
     private MongoTemplate mongoTemplate;
@@ -20,28 +31,100 @@ public class UserRepositoryImpl {
     /**
      * Finds all users who are eligible for the weekly sentiment analysis email.
      * This checks for a valid email and that the user has enabled the feature.
+     * Only the id, username and email are loaded; prefer streamUsersForSA for jobs, which does
+     * not hold every eligible user in memory at once.
      * @return A list of eligible User objects.
      */
     public List<User> getUserForSA() {
-        Query query = new Query();
+        Query query = new Query(eligibleForSA());
+        includeNotificationFields(query);
 
-        // Criterion 1: User must have a valid, non-empty email address.
-        Criteria emailCriteria = Criteria.where("email")
-                .exists(true)
-                .ne("")
-                .regex(EMAIL_REGEX);
+        // Execute the query against the 'users' collection.
+        return mongoTemplate.find(query, User.class);
+    }
+
+    /**
+     * Splits the users eligible for the weekly sentiment analysis into id ranges of about
+     * the same number of users, for partitioned jobs.
+     * @param partitions The number of ranges wanted; fewer are returned when there are fewer users.
+     * @return Contiguous ranges covering every id, in id order; empty when no user is eligible.
+     */
+    public List<IdRange> partitionUsersForSA(int partitions) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(eligibleForSA()),
+                Aggregation.project("_id"),
+                Aggregation.bucketAuto("_id", partitions))
+                .withOptions(Aggregation.newAggregationOptions().allowDiskUse(true).build());
+        List<Document> buckets = mongoTemplate.aggregate(aggregation, User.class, Document.class).getMappedResults();
 
-        // --- THIS IS THE CORRECTED LINE ---
-        // Criterion 2: The 'sentimentAnalysisEnabled' field must be true.
-        // We now use the correct field name from the User entity.
-        Criteria sentimentCriteria = Criteria.where("sentimentAnalysisEnabled")
-                .is(true);
+        // Bucket i covers [min_i, min_i+1); the first and last ranges are left open.
+        List<IdRange> ranges = new ArrayList<>(buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            ObjectId from = (i == 0) ? null : bucketMin(buckets.get(i));
+            ObjectId to = (i == buckets.size() - 1) ? null : bucketMin(buckets.get(i + 1));
+            ranges.add(new IdRange(from, to));
+        }
+        return ranges;
+    }
 
-        // Combine the criteria: a user must meet BOTH conditions.
-        Criteria finalCriteria = new Criteria().andOperator(emailCriteria, sentimentCriteria);
-        query.addCriteria(finalCriteria);
+    /**
+     * Streams the eligible users of one id range in id order. The stream holds a cursor and must be closed.
+     * Like getUserForSA, only the id, username and email of each user are loaded.
+     */
+    public Stream<User> streamUsersForSA(IdRange range) {
+        return streamUsersForSA(range, null);
+    }
 
-        // Execute the query against the 'users' collection.
-        return mongoTemplate.find(query, User.class);
+    /**
+     * Streams the eligible users of one id range in id order, after a user id when 'after' is not null
+     * (to resume a partition), fetching them in batches. The stream holds a cursor and must be closed.
+     */
+    public Stream<User> streamUsersForSA(IdRange range, ObjectId after) {
+        Criteria idCriteria = Criteria.where("_id");
+        if (after != null) {
+            idCriteria = idCriteria.gt(after);
+        } else if (range.from() != null) {
+            idCriteria = idCriteria.gte(range.from());
+        }
+        if (range.to() != null) {
+            idCriteria = idCriteria.lt(range.to());
+        }
+        Query query = new Query(eligibleForSA());
+        if (after != null || range.from() != null || range.to() != null) {
+            query.addCriteria(idCriteria);
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "_id"));
+        includeNotificationFields(query);
+        query.cursorBatchSize(CURSOR_BATCH_SIZE);
+        return mongoTemplate.stream(query, User.class);
+    }
+
+    /**
+     * Stores whether the email is valid on users saved before the flag existed, with the same
+     * pattern as User.setEmail, in one update on the server.
+     * @return The number of users updated.
+     */
+    public long backfillEmailValid() {
+        Query query = new Query(Criteria.where("emailValid").exists(false));
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("emailValid")
+                .toValue(StringOperators.valueOf(ConditionalOperators.ifNull("email").then("")).regexMatch(User.EMAIL_REGEX));
+        return mongoTemplate.updateMulti(query, update, User.class).getModifiedCount();
+    }
+
+    private static ObjectId bucketMin(Document bucket) {
+        return bucket.get("_id", Document.class).getObjectId("min");
+    }
+
+    private static Criteria eligibleForSA() {
+        // The email was checked when it was saved (User.emailValid), so no regex runs here;
+        // both fields lead the sa_eligible_idx index.
+        return Criteria.where("sentimentAnalysisEnabled").is(true)
+                .and("emailValid").is(true);
+    }
+
+    // The password hash, roles and the rest are not needed to summarize or notify a user.
+    private static void includeNotificationFields(Query query) {
+        query.fields().include("username", "email");
     }
 }
@@ -4,6 +4,8 @@ import net.manifest.journalapp.entity.WeeklySummary;
 import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface WeeklySummaryRepository extends MongoRepository<WeeklySummary, ObjectId> {
@@ -18,6 +20,11 @@ public interface WeeklySummaryRepository extends MongoRepository<WeeklySummary,
      */
     Optional<WeeklySummary> findByUserId(ObjectId userId);
 
+    /**
+     * Finds the summaries of a batch of users in one query (served by the unique userId index).
+     */
+    List<WeeklySummary> findByUserIdIn(Collection<ObjectId> userIds);
+
     /**
      * Deletes a weekly summary by the ID of the user it belongs to.
      * This is a crucial method for data cleanup, called by the UserService when an
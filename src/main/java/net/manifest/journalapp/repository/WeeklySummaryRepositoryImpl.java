@@ -0,0 +1,237 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.WeeklySummary;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.RollupPeriod;
+import net.manifest.journalapp.enums.Sentiment;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class WeeklySummaryRepositoryImpl {
+
+    private static final String JOURNAL_COLLECTION = "journal_entries";
+    private static final String SUMMARY_COLLECTION = "weekly_summaries";
+    private static final String ROLLUP_COLLECTION = "journal_rollups";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Computes the weekly summary of every user who wrote entries after 'since' and has sentiment
+     * analysis enabled, in a single aggregation on the server, and merges the results into
+     * weekly_summaries (matched on the unique userId index). Only the userId, mood and sentiment
+     * of each entry are read; no entry is transferred to the application.
+     * Users without entries in the window keep their previous summary, as before.
+     * @param since The start of the week (exclusive).
+     * @return The number of summaries written.
+     */
+    public long mergeWeeklySummaries(LocalDateTime since) {
+        Date calculatedAt = new Date();
+
+        AggregationOperation match = context -> new Document("$match",
+                new Document("createdAt", new Document("$gt", toDate(since))));
+
+        // $avg skips the nulls the switch yields for entries without a mood or sentiment,
+        // just like the in-memory averages skipped them.
+        AggregationOperation group = context -> new Document("$group", new Document("_id", "$userId")
+                .append("entryCount", new Document("$sum", 1))
+                .append("averageMoodScore", new Document("$avg", scoreOf("$mood", moodScores())))
+                .append("averageSentimentScore", new Document("$avg", scoreOf("$sentiment", sentimentScores())))
+                .append("moods", new Document("$push", "$mood"))
+                .append("sentiments", new Document("$push", "$sentiment")));
+
+        AggregationOperation lookupUser = context -> new Document("$lookup", new Document("from", "users")
+                .append("localField", "_id")
+                .append("foreignField", "_id")
+                .append("as", "user"));
+
+        AggregationOperation eligibleOnly = context -> new Document("$match",
+                new Document("user.sentimentAnalysisEnabled", true));
+
+        // _id is left out so that matched summaries keep their own id.
+        AggregationOperation project = context -> new Document("$project", new Document("_id", 0)
+                .append("userId", "$_id")
+                .append("entryCount", 1)
+                .append("averageMoodScore", new Document("$ifNull", List.of("$averageMoodScore", 0.0)))
+                .append("averageSentimentScore", new Document("$ifNull", List.of("$averageSentimentScore", 0.0)))
+                .append("dominantMood", mostFrequent("$moods", Mood.MEH.name()))
+                .append("dominantSentiment", mostFrequent("$sentiments", Sentiment.NEUTRAL.name()))
+                .append("lastCalculated", calculatedAt));
+
+        MergeOperation merge = Aggregation.merge()
+                .intoCollection(SUMMARY_COLLECTION)
+                .on("userId")
+                .whenMatched(MergeOperation.WhenDocumentsMatch.mergeDocuments())
+                .whenNotMatched(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                .build();
+
+        mongoTemplate.aggregate(
+                Aggregation.newAggregation(match, group, lookupUser, eligibleOnly, project, merge)
+                        .withOptions(Aggregation.newAggregationOptions().allowDiskUse(true).build()),
+                JOURNAL_COLLECTION,
+                Document.class);
+
+        return mongoTemplate.count(new Query(Criteria.where("lastCalculated").is(calculatedAt)), WeeklySummary.class);
+    }
+
+    /**
+     * Finalizes the weekly summaries from the incrementally maintained week rollups instead of the
+     * entries: one small document per active user is read, and the results are merged into
+     * weekly_summaries exactly like mergeWeeklySummaries does.
+     * @param weekKey The ISO week to finalize, e.g. "2026-W42".
+     * @return The number of summaries written.
+     */
+    public long mergeWeeklySummariesFromRollups(String weekKey) {
+        Date calculatedAt = new Date();
+
+        AggregationOperation match = context -> new Document("$match", new Document("period", RollupPeriod.WEEK.name())
+                .append("periodKey", weekKey)
+                .append("entryCount", new Document("$gt", 0)));
+
+        AggregationOperation lookupUser = context -> new Document("$lookup", new Document("from", "users")
+                .append("localField", "userId")
+                .append("foreignField", "_id")
+                .append("as", "user"));
+
+        AggregationOperation eligibleOnly = context -> new Document("$match",
+                new Document("user.sentimentAnalysisEnabled", true));
+
+        AggregationOperation project = context -> new Document("$project", new Document("_id", 0)
+                .append("userId", 1)
+                .append("entryCount", 1)
+                .append("averageMoodScore", average("$moodScoreSum", "$moodCount"))
+                .append("averageSentimentScore", average("$sentimentScoreSum", "$sentimentCount"))
+                .append("dominantMood", mostFrequentKey("$moodCounts", Mood.MEH.name()))
+                .append("dominantSentiment", mostFrequentKey("$sentimentCounts", Sentiment.NEUTRAL.name()))
+                .append("lastCalculated", calculatedAt));
+
+        MergeOperation merge = Aggregation.merge()
+                .intoCollection(SUMMARY_COLLECTION)
+                .on("userId")
+                .whenMatched(MergeOperation.WhenDocumentsMatch.mergeDocuments())
+                .whenNotMatched(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                .build();
+
+        mongoTemplate.aggregate(
+                Aggregation.newAggregation(match, lookupUser, eligibleOnly, project, merge),
+                ROLLUP_COLLECTION,
+                Document.class);
+
+        return mongoTemplate.count(new Query(Criteria.where("lastCalculated").is(calculatedAt)), WeeklySummary.class);
+    }
+
+    /**
+     * Writes the summaries with one unordered bulk of upserts keyed on userId (unique), replacing
+     * each user's metrics without reading the stored summary first.
+     * @throws org.springframework.data.mongodb.BulkOperationException if some upserts failed; the
+     *         others are written, and its errors carry the index of each failed summary.
+     */
+    public BulkWriteResult upsertAll(List<WeeklySummary> summaries) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WeeklySummary.class);
+        for (WeeklySummary summary : summaries) {
+            Update update = new Update()
+                    .set("averageMoodScore", summary.getAverageMoodScore())
+                    .set("dominantMood", summary.getDominantMood())
+                    .set("averageSentimentScore", summary.getAverageSentimentScore())
+                    .set("dominantSentiment", summary.getDominantSentiment())
+                    .set("entryCount", summary.getEntryCount())
+                    .set("lastCalculated", summary.getLastCalculated());
+            bulk.upsert(new Query(Criteria.where("userId").is(summary.getUserId())), update);
+        }
+        return bulk.execute();
+    }
+
+    private static Date toDate(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Map<String, Integer> moodScores() {
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        for (Mood mood : Mood.values()) {
+            scores.put(mood.name(), mood.getScore());
+        }
+        return scores;
+    }
+
+    private static Map<String, Integer> sentimentScores() {
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        for (Sentiment sentiment : Sentiment.values()) {
+            scores.put(sentiment.name(), sentiment.getScore());
+        }
+        return scores;
+    }
+
+    /**
+     * Maps an enum field stored by name to its score; null for missing or unknown values.
+     */
+    private static Document scoreOf(String field, Map<String, Integer> scores) {
+        List<Document> branches = new ArrayList<>(scores.size());
+        scores.forEach((name, score) -> branches.add(
+                new Document("case", new Document("$eq", List.of(field, name))).append("then", score)));
+        return new Document("$switch", new Document("branches", branches).append("default", null));
+    }
+
+    /**
+     * The most frequent non-null value of an array, or the fallback when there is none.
+     * Ties go to whichever value the server visits first, as they did with the HashMap before.
+     */
+    private static Document mostFrequent(String array, String fallback) {
+        Document count = new Document("$size", new Document("$filter", new Document("input", "$$values")
+                .append("as", "v")
+                .append("cond", new Document("$eq", List.of("$$v", "$$this")))));
+        Document best = new Document("$reduce", new Document("input", new Document("$setUnion", List.of("$$values")))
+                .append("initialValue", new Document("value", fallback).append("count", 0))
+                .append("in", new Document("$let", new Document("vars", new Document("count", count))
+                        .append("in", new Document("$cond", List.of(
+                                new Document("$gt", List.of("$$count", "$$value.count")),
+                                new Document("value", "$$this").append("count", "$$count"),
+                                "$$value"))))));
+        Document nonNull = new Document("$filter", new Document("input", array)
+                .append("as", "v")
+                .append("cond", new Document("$ne", Arrays.asList("$$v", null))));
+        return new Document("$let", new Document("vars", new Document("values", nonNull))
+                .append("in", new Document("$let", new Document("vars", new Document("best", best))
+                        .append("in", "$$best.value"))));
+    }
+
+    private static Document average(String sum, String count) {
+        return new Document("$cond", List.of(
+                new Document("$gt", List.of(count, 0)),
+                new Document("$divide", List.of(sum, count)),
+                0.0));
+    }
+
+    /**
+     * The key with the highest count in a { NAME: count } histogram, or the fallback when none is above 0.
+     */
+    private static Document mostFrequentKey(String histogram, String fallback) {
+        Document best = new Document("$reduce", new Document("input",
+                new Document("$objectToArray", new Document("$ifNull", List.of(histogram, new Document()))))
+                .append("initialValue", new Document("value", fallback).append("count", 0))
+                .append("in", new Document("$cond", List.of(
+                        new Document("$gt", List.of("$$this.v", "$$value.count")),
+                        new Document("value", "$$this.k").append("count", "$$this.v"),
+                        "$$value"))));
+        return new Document("$let", new Document("vars", new Document("best", best)).append("in", "$$best.value"));
+    }
+}
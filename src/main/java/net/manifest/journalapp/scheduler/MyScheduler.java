@@ -1,19 +1,23 @@
 package net.manifest.journalapp.scheduler;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import net.manifest.journalapp.cache.AppCache;
-import net.manifest.journalapp.entity.User;
-import net.manifest.journalapp.model.SentimentData;
-import net.manifest.journalapp.repository.UserRepositoryImpl;
-import net.manifest.journalapp.repository.WeeklySummaryRepository;
-import net.manifest.journalapp.services.SentimentNotificationService;
+import net.manifest.journalapp.entity.JobRun;
+import net.manifest.journalapp.enums.RollupPeriod;
+import net.manifest.journalapp.model.WeeklySummariesGeneratedEvent;
+import net.manifest.journalapp.repository.JobRunRepository;
+import net.manifest.journalapp.services.JobLeaseService;
+import net.manifest.journalapp.services.SentimentNotificationProducer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.KafkaException;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.util.Map;
+
 ;
 
 
@@ -21,56 +25,86 @@ import java.util.List;
 @Component
 public class MyScheduler {
 
+     public static final String JOB_NAME = "weekly-notification";
+     private static final String WEEK = "week";
+
      @Autowired
-     private UserRepositoryImpl userRepositoryImpl;
-     @Autowired
-     private WeeklySummaryRepository weeklySummaryRepository;
+     private PartitionedJobRunner partitionedJobRunner;
      @Autowired
      private AppCache appCache;
      @Autowired
-     private KafkaTemplate<String, SentimentData>kafkaTemplate;
+     private SentimentNotificationProducer sentimentNotificationProducer;
      @Autowired
-     private SentimentNotificationService sentimentNotificationService;
+     private JobLeaseService jobLeaseService;
+     @Autowired
+     private JobRunRepository jobRunRepository;
 
-     //(cron = "SEC MIN HOUR DAYOFTHEMONTH MONTH DAYOFTHEWEEK")
-     @Scheduled(cron = "0 0 9 * * SUN")
-     public void fetchUsersAndSendSaMail(){ // Sa -> SentimentAnalysis
-        log.info("Starting weekly NOTIFICATION job.");
-        List<User> userList = userRepositoryImpl.getUserForSA();
-        log.info("Found {} users eligible for weekly notification.", userList.size());
-        for(User user:userList){
-              try{
-                  // 1. Fetch the PRE-CALCULATED summary. This is a single, fast query.
-                  // We use .ifPresent() for clean,
-                  //safe handling if a summary for some reason doesn't exist.
+     @PostConstruct
+     public void registerPartitionWork(){
+        // Every partition buffers its users and writes their events to the outbox in batches; progress
+        // is only recorded once they are written, and the users whose events failed count as failed.
+        partitionedJobRunner.register(JOB_NAME, () -> {
+            SentimentNotificationProducer.Batch notifications = sentimentNotificationProducer.newBatch();
+            return PartitionedJobRunner.PartitionBatch.of(
+                    (user, parameters) -> notifications.add(user, parameters.get(WEEK)), notifications::flush);
+        });
+     }
 
-                  weeklySummaryRepository.findByUserId(user.getId()).ifPresent(summary ->{
-                      // 2. Build the enhanced SentimentData object from the summary.
-                      SentimentData sentimentData = SentimentData.builder()
-                              .email(user.getEmail())
-                              .userName(user.getUsername())
-                              .dominantMood(summary.getDominantMood())
-                              .dominantSentiment(summary.getDominantSentiment())
-                              .averageMoodScore(summary.getAverageMoodScore())
-                              .entryCount(summary.getEntryCount())
-                              .build();
+     /**
+      * Starts the notifications as soon as the weekly summaries are written, instead of at a fixed
+      * time that the summary job might not have finished by.
+      */
+     @Async
+     @EventListener
+     public void onWeeklySummariesGenerated(WeeklySummariesGeneratedEvent event){
+        log.info("Weekly summaries of {} are ready ({} written).", event.getWeek(), event.getSummaries());
+        fetchUsersAndSendSaMail(event.getWeek());
+     }
 
-                      log.info("Producing summary notification for email: {}", sentimentData.getEmail());
-                      try{
-                          kafkaTemplate.send("weekly-sentiments", sentimentData.getEmail(), sentimentData);
-                      } catch (KafkaException e) {
-                          log.warn("Kafka producer failed. Falling back to direct email for {}. Reason: {}", sentimentData.getEmail(), e.getMessage());
-                          sentimentNotificationService.sendSentimentReport(sentimentData); // Simplified call
-                      }
-                  });
-              }catch (Exception e) {
-                  log.error("Failed to process notification for user {}", user.getUsername(), e);
-              }
-        }
-        log.info("Weekly NOTIFICATION job finished.");
-    }
+     /**
+      * Starts the notifications of the latest summarized week if no node has finished them, from
+      * job_runs rather than from the in-memory event, which is lost if the node that generated the
+      * summaries dies before (or while) notifying. A run already going on elsewhere holds the lease.
+      */
+     @Async
+     @Scheduled(fixedDelayString = "${notifications.start-check-interval-ms:60000}")
+     public void startPendingNotifications(){
+        jobRunRepository.findFirstByJobNameOrderByFinishedAtDesc(WeeklySummaryScheduler.JOB_NAME)
+                .filter(summaries -> !jobRunRepository.existsById(JobRun.idOf(JOB_NAME, summaries.getKey())))
+                .ifPresent(summaries -> {
+                    log.info("The weekly summaries of {} have no finished notification run; starting it.", summaries.getKey());
+                    fetchUsersAndSendSaMail(summaries.getKey());
+                });
+     }
+
+     public void fetchUsersAndSendSaMail(){ // Sa -> SentimentAnalysis
+        fetchUsersAndSendSaMail(RollupPeriod.WEEK.keyOf(LocalDate.now().minusDays(1)));
+     }
 
+     /**
+      * @param week The ISO week (e.g. 2024-W07) the notifications are about; a user is notified at most once per week.
+      */
+     public void fetchUsersAndSendSaMail(String week){
+        // The lease keeps a second run (e.g. a repeated summaries event) from mailing everyone twice.
+        jobLeaseService.runExclusively(JOB_NAME, () -> {
+            log.info("Starting weekly NOTIFICATION job.");
+            // The eligible users are split into id ranges that all nodes notify in parallel;
+            // a failure only affects its own user.
+            PartitionedJobRunner.RunResult result = partitionedJobRunner.run(JOB_NAME, Map.of(WEEK, week));
+            // Recorded before the lease is released, so that no node starts the week's run again. A run that
+            // left users without an event is not recorded, so the next check runs the week again; the
+            // outbox keeps the users it did reach from being notified twice.
+            if (result.complete()) {
+                jobRunRepository.save(JobRun.finished(JOB_NAME, week, result.processed()));
+            } else {
+                log.warn("Weekly NOTIFICATION job of {} left {} users and {} partitions unfinished; it will be run again.",
+                        week, result.failed(), result.unfinishedPartitions());
+            }
+            log.info("Weekly NOTIFICATION job finished.");
+        });
+    }
 
+    // Not leased: AppCache is held in memory by each node, so every node has to reload its own copy.
     @Scheduled(cron = "0 0/10 * ? * *")
     public  void clearAppCache(){
         appCache.init();
@@ -0,0 +1,365 @@
+package net.manifest.journalapp.scheduler;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.entity.JobPartition;
+import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.model.IdRange;
+import net.manifest.journalapp.repository.JobPartitionRepository;
+import net.manifest.journalapp.repository.JobPartitionRepositoryImpl;
+import net.manifest.journalapp.repository.UserRepositoryImpl;
+import net.manifest.journalapp.services.JobLeaseService;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Runs a per-user job over the users eligible for the weekly sentiment analysis, split into
+ * user id ranges that are processed concurrently, by every node of the cluster.
+ * <p>
+ * The node that starts a run only writes its partitions to job_partitions; each node (the starting
+ * one included) claims PENDING partitions under a lease and works on them on its bounded pool, so a
+ * run is spread over all replicas. A partition's lease is renewed with its progress, and if its node
+ * dies the lease expires and another node claims it and continues after the last user done.
+ * A failure for one user is logged and counted without stopping its partition.
+ */
+@Slf4j
+@Component
+public class PartitionedJobRunner {
+
+    private static final List<String> UNFINISHED = List.of(JobPartition.PENDING, JobPartition.RUNNING);
+
+    @Autowired
+    private UserRepositoryImpl userRepositoryImpl;
+
+    @Autowired
+    private JobPartitionRepository jobPartitionRepository;
+
+    @Autowired
+    private JobPartitionRepositoryImpl jobPartitionRepositoryImpl;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Value("${jobs.partitioned.partitions:16}")
+    private int partitions;
+
+    // The number of partitions this node processes at the same time; 0 uses all cores.
+    @Value("${jobs.partitioned.parallelism:4}")
+    private int parallelism;
+
+    // A partition's progress is saved after this many users, or sooner to renew its lease in time.
+    @Value("${jobs.partitioned.progress-interval:200}")
+    private int progressInterval;
+
+    // How often each node looks for partitions to claim, and the starting node for the end of its run.
+    @Value("${jobs.partitioned.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    // Claims of a partition before it is failed instead of handed to yet another node.
+    @Value("${jobs.partitioned.max-attempts:3}")
+    private int maxAttempts;
+
+    // How long the starting node waits for a run; the partitions still unfinished then are failed.
+    @Value("${jobs.partitioned.run-timeout-minutes:360}")
+    private long runTimeoutMinutes;
+
+    /**
+     * The work of a job for one user. It is registered on every node under the job's name, since any
+     * node may process a partition of a run another node started.
+     */
+    @FunctionalInterface
+    public interface PartitionWork {
+        void process(User user, Map<String, String> parameters);
+    }
+
+    /**
+     * Per-user work that buffers its results. A batch belongs to one partition on one node, so it is
+     * only used by one thread at a time.
+     */
+    public interface PartitionBatch {
+        void process(User user, Map<String, String> parameters);
+
+        /**
+         * Writes out the work buffered so far.
+         * @return The users whose buffered work could not be written.
+         */
+        long flush();
+
+        static PartitionBatch of(PartitionWork work, LongSupplier flush) {
+            return new PartitionBatch() {
+                @Override
+                public void process(User user, Map<String, String> parameters) {
+                    work.process(user, parameters);
+                }
+
+                @Override
+                public long flush() {
+                    return flush.getAsLong();
+                }
+            };
+        }
+    }
+
+    // Opens a batch of the job's work for each partition.
+    private final Map<String, Supplier<PartitionBatch>> jobs = new ConcurrentHashMap<>();
+
+
+    private ExecutorService pool;
+
+    // One permit per pool thread; a worker holds it while it claims and processes partitions.
+    private Semaphore workers;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(poolSize,
+                runnable -> new Thread(runnable, "job-partition-" + threadNumber.incrementAndGet()));
+        workers = new Semaphore(poolSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * The outcome of one run: the users handled over all partitions and how many of them failed.
+     */
+    public record RunResult(String runId, int partitions, long processed, long failed, int unfinishedPartitions) {
+        /**
+         * @return true if every partition completed and every user's work succeeded.
+         */
+        public boolean complete() {
+            return failed == 0 && unfinishedPartitions == 0;
+        }
+    }
+
+    /**
+     * Registers the per-user work of a job, so that this node takes part in its runs.
+     */
+    public void register(String jobName, PartitionWork work) {
+        register(jobName, () -> PartitionBatch.of(work, () -> 0));
+    }
+
+    /**
+     * Registers per-user work that buffers its results, e.g. to write them in bulk. Every partition a
+     * node works on gets a batch of its own, which is flushed before each progress save and before the
+     * partition completes; the users it could not write are counted as failed in that partition, and
+     * so in the run's result whichever node ran it. The partition fails if a flush throws.
+     */
+    public void register(String jobName, Supplier<PartitionBatch> batches) {
+        jobs.put(jobName, batches);
+    }
+
+    /**
+     * Starts a run of the job and waits until every partition has finished, on whichever node, or
+     * until 'run-timeout-minutes' have passed, after which the unfinished partitions are failed.
+     * @param jobName The job's name, e.g. "weekly-summary"; its work must be registered.
+     * @param parameters The run's inputs, passed to the work for every user.
+     * @return The totals of the run.
+     */
+    public RunResult run(String jobName, Map<String, String> parameters) {
+        if (!jobs.containsKey(jobName)) {
+            throw new IllegalStateException("No work is registered for the job " + jobName);
+        }
+        LocalDateTime runStartedAt = LocalDateTime.now();
+        String runId = jobName + ":" + runStartedAt;
+        List<IdRange> ranges = userRepositoryImpl.partitionUsersForSA(partitions);
+
+        List<JobPartition> jobPartitions = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            JobPartition partition = new JobPartition();
+            partition.setId(runId + ":" + i);
+            partition.setJobName(jobName);
+            partition.setRunId(runId);
+            partition.setRunStartedAt(runStartedAt);
+            partition.setIndex(i);
+            partition.setFromUserId(ranges.get(i).from());
+            partition.setToUserId(ranges.get(i).to());
+            partition.setParameters(parameters);
+            partition.setStatus(JobPartition.PENDING);
+            jobPartitions.add(partition);
+        }
+        jobPartitionRepository.saveAll(jobPartitions);
+        log.info("Starting {} over {} user partitions.", runId, jobPartitions.size());
+
+        LocalDateTime deadline = runStartedAt.plusMinutes(runTimeoutMinutes);
+        claimAvailable();
+        while (jobPartitionRepository.countByRunIdAndStatusIn(runId, UNFINISHED) > 0) {
+            if (LocalDateTime.now().isAfter(deadline)) {
+                long unfinished = jobPartitionRepositoryImpl.failUnfinished(runId, LocalDateTime.now());
+                log.error("{} did not finish within {} minutes; its {} unfinished partitions are marked FAILED.",
+                        runId, runTimeoutMinutes, unfinished);
+                break;
+            }
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Stopped waiting for {}; its partitions are left to the other nodes.", runId);
+                break;
+            }
+            claimAvailable();
+        }
+
+        long processed = 0;
+        long failed = 0;
+        int unfinishedPartitions = 0;
+        for (JobPartition partition : jobPartitionRepository.findByRunIdOrderByIndexAsc(runId)) {
+            processed += partition.getProcessed();
+            failed += partition.getFailed();
+            if (!JobPartition.COMPLETED.equals(partition.getStatus())) {
+                unfinishedPartitions++;
+            }
+            if (JobPartition.FAILED.equals(partition.getStatus())) {
+                log.error("Partition {} of {} failed after {} users.", partition.getIndex(), runId, partition.getProcessed());
+            }
+        }
+        log.info("Finished {}: {} users processed, {} failed.", runId, processed, failed);
+        return new RunResult(runId, jobPartitions.size(), processed, failed, unfinishedPartitions);
+    }
+
+    /**
+     * @return The partitions of the most recent run of the job, in id order.
+     */
+    public List<JobPartition> lastRun(String jobName) {
+        return jobPartitionRepository.findFirstByJobNameOrderByRunStartedAtDesc(jobName)
+                .map(partition -> jobPartitionRepository.findByRunIdOrderByIndexAsc(partition.getRunId()))
+                .orElse(List.of());
+    }
+
+    /**
+     * Claims partitions of the registered jobs, from runs started on any node, while this node has
+     * idle workers. Partitions that used up their attempts are failed first.
+     */
+    @Scheduled(fixedDelayString = "${jobs.partitioned.poll-interval-ms:5000}")
+    public void claimAvailable() {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        try {
+            long abandoned = jobPartitionRepositoryImpl.failAbandoned(maxAttempts, LocalDateTime.now());
+            if (abandoned > 0) {
+                log.error("{} job partitions were claimed {} times without finishing and are marked FAILED.", abandoned, maxAttempts);
+            }
+            while (workers.tryAcquire()) {
+                boolean started = false;
+                try {
+                    JobPartition partition = claimNext();
+                    if (partition == null) {
+                        return;
+                    }
+                    pool.execute(() -> work(partition));
+                    started = true;
+                } finally {
+                    if (!started) {
+                        workers.release();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not claim job partitions: {}", e.getMessage());
+        }
+    }
+
+    private JobPartition claimNext() {
+        LocalDateTime now = LocalDateTime.now();
+        return jobPartitionRepositoryImpl.claimNext(jobs.keySet(), jobLeaseService.getNodeId(), now,
+                now.plusSeconds(jobLeaseService.getTtlSeconds()), maxAttempts);
+    }
+
+    // Keeps the worker busy with further partitions once the first is done.
+    private void work(JobPartition first) {
+        try {
+            JobPartition partition = first;
+            while (partition != null && !Thread.currentThread().isInterrupted()) {
+                runPartition(partition);
+                partition = claimNext();
+            }
+        } catch (Exception e) {
+            log.warn("Could not claim the next job partition: {}", e.getMessage());
+        } finally {
+            workers.release();
+        }
+    }
+
+    private void runPartition(JobPartition partition) {
+        PartitionBatch batch = jobs.get(partition.getJobName()).get();
+        ObjectId resumeAfter = partition.getLastUserId();
+        if (resumeAfter != null) {
+            log.info("Resuming partition {} after user {} (attempt {}).", partition.getId(), resumeAfter, partition.getAttempts());
+        }
+        // The lease is renewed with the progress, well before it would expire.
+        long renewEveryMs = jobLeaseService.getTtlSeconds() * 1000 / 3;
+        long lastSaved = System.currentTimeMillis();
+        try (Stream<User> users = userRepositoryImpl.streamUsersForSA(
+                new IdRange(partition.getFromUserId(), partition.getToUserId()), resumeAfter)) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext() && !Thread.currentThread().isInterrupted()) {
+                User user = iterator.next();
+                try {
+                    batch.process(user, partition.getParameters());
+                } catch (Exception e) {
+                    partition.setFailed(partition.getFailed() + 1);
+                    log.error("{} failed for user {}", partition.getJobName(), user.getUsername(), e);
+                }
+                partition.setProcessed(partition.getProcessed() + 1);
+                partition.setLastUserId(user.getId());
+                if (partition.getProcessed() % progressInterval == 0 || System.currentTimeMillis() - lastSaved >= renewEveryMs) {
+                    partition.setFailed(partition.getFailed() + batch.flush());
+                    if (!saveProgress(partition)) {
+                        log.warn("Partition {} was claimed by another node; stopping here.", partition.getId());
+                        return;
+                    }
+                    lastSaved = System.currentTimeMillis();
+                }
+            }
+            partition.setFailed(partition.getFailed() + batch.flush());
+            // On shutdown the partition goes back to PENDING, for another node to continue right away.
+            partition.setStatus(Thread.currentThread().isInterrupted() ? JobPartition.PENDING : JobPartition.COMPLETED);
+        } catch (Exception e) {
+            partition.setStatus(JobPartition.FAILED);
+            log.error("Partition {} failed after {} users.", partition.getId(), partition.getProcessed(), e);
+        }
+        if (!JobPartition.PENDING.equals(partition.getStatus())) {
+            partition.setFinishedAt(LocalDateTime.now());
+        }
+        saveProgress(partition);
+    }
+
+    /**
+     * @return false if another node took the partition over, in which case nothing was written.
+     */
+    private boolean saveProgress(JobPartition partition) {
+        LocalDateTime now = LocalDateTime.now();
+        partition.setUpdatedAt(now);
+        partition.setLeaseExpiresAt(now.plusSeconds(jobLeaseService.getTtlSeconds()));
+        try {
+            return jobPartitionRepositoryImpl.saveProgress(partition);
+        } catch (Exception e) {
+            // Keep going: the next save renews the lease, unless it expires first and the
+            // partition is handed to another node.
+            log.warn("Could not record the progress of partition {}: {}", partition.getId(), e.getMessage());
+            return true;
+        }
+    }
+}
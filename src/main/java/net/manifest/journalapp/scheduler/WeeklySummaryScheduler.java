@@ -1,15 +1,25 @@
 package net.manifest.journalapp.scheduler;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.entity.JobRun;
 import net.manifest.journalapp.entity.JournalEntry;
 import net.manifest.journalapp.entity.User;
 import net.manifest.journalapp.entity.WeeklySummary;
 import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.RollupPeriod;
 import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.model.WeeklySummariesGeneratedEvent;
+import net.manifest.journalapp.repository.JobRunRepository;
 import net.manifest.journalapp.repository.JournalEntryRepository;
-import net.manifest.journalapp.repository.UserRepositoryImpl;
-import net.manifest.journalapp.repository.WeeklySummaryRepository;
+import net.manifest.journalapp.repository.WeeklySummaryRepositoryImpl;
+import net.manifest.journalapp.services.JobLeaseService;
+import net.manifest.journalapp.services.JournalRollupService;
+import net.manifest.journalapp.services.WeeklySummaryBulkWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -23,77 +33,153 @@ import java.util.Map;
 @Component
 public class WeeklySummaryScheduler {
 
-    @Autowired
-    private UserRepositoryImpl userRepositoryImpl;
+    public static final String JOB_NAME = "weekly-summary";
+
+    private static final String START_DATE = "startDate";
 
     @Autowired
     private JournalEntryRepository journalEntryRepository;
 
     @Autowired
-    private WeeklySummaryRepository weeklySummaryRepository;
+    private WeeklySummaryBulkWriter weeklySummaryBulkWriter;
+
+    @Autowired
+    private WeeklySummaryRepositoryImpl weeklySummaryRepositoryImpl;
+
+    @Autowired
+    private JournalRollupService journalRollupService;
+
+    @Autowired
+    private PartitionedJobRunner partitionedJobRunner;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private JobRunRepository jobRunRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * When enabled, the summaries of all users are computed by a single MongoDB aggregation and
+     * merged into weekly_summaries on the server. When disabled, or if the aggregation fails, each
+     * user's entries are loaded and summarized in memory, in parallel user partitions.
+     */
+    @Value("${weekly-summary.aggregation.enabled:true}")
+    private boolean aggregationEnabled;
+
+    @PostConstruct
+    public void registerPartitionWork() {
+        // Every partition buffers its summaries in a batch of its own, written before the partition's
+        // progress is recorded; the summaries that failed are counted as failed users of the partition.
+        partitionedJobRunner.register(JOB_NAME, () -> {
+            WeeklySummaryBulkWriter.Batch summaries = weeklySummaryBulkWriter.newBatch();
+            return PartitionedJobRunner.PartitionBatch.of(
+                    (user, parameters) -> summarizeUser(user, LocalDateTime.parse(parameters.get(START_DATE)), summaries),
+                    summaries::flush);
+        });
+    }
 
     /**
      * This method runs automatically based on the CRON schedule.
      * "0 0 8 ? * SUN" means "At 8:00 AM, every Sunday".
-     * It calculates and saves a fresh analysis of the previous week's activity for every user.
+     * It calculates and saves a fresh analysis of the previous week's activity for every user,
+     * then records in job_runs that the summaries of the week are ready and announces it (the
+     * notification job starts on that event, or from the record on any node if this one is gone).
+     * Every replica fires the trigger, but only the node that gets the job's lease runs it. The job
+     * runs on the async executor, so that waiting for its partitions does not hold a scheduler thread.
      */
+    @Async
     @Scheduled(cron = "0 0 8 ? * SUN")
     public void generateWeeklySummaries(){
+        jobLeaseService.runExclusively(JOB_NAME, this::generateAndAnnounce);
+    }
+
+    private void generateAndAnnounce(){
          log.info("Starting weekly summary generation job...");
-        // We call your custom, efficient method to get only the users who are
-        // eligible for the sentiment analysis report.
-        List<User> users = userRepositoryImpl.getUserForSA();
-        log.info("Found {} users eligible for weekly summary.", users.size());
-
-        for(User user :users){
-             try{
-                 // Set the end date to the most recent Sunday at 00:00 (start of Sunday)
-                 LocalDateTime endDate = LocalDateTime.now()
-                         .with(DayOfWeek.SUNDAY)
-                         .withHour(0)
-                         .withMinute(0);
-                 // Set the start date to exactly one week before the end date
-                 LocalDateTime startDate = endDate.minusWeeks(1);
-
-                 List<JournalEntry> recentEntries = journalEntryRepository.findByUserIdAndCreatedAtAfter(user.getId(), startDate);
-
-                 if (recentEntries.isEmpty()) {
-                     log.info("No entries found for user {} in the last week. Skipping summary.", user.getUsername());
-                     continue;
-                 }
+        // Set the end date to the most recent Sunday at 00:00 (start of Sunday)
+        LocalDateTime endDate = LocalDateTime.now()
+                .with(DayOfWeek.SUNDAY)
+                .withHour(0)
+                .withMinute(0);
+        // Set the start date to exactly one week before the end date
+        LocalDateTime startDate = endDate.minusWeeks(1);
+
+        String week = RollupPeriod.WEEK.keyOf(endDate.minusDays(1).toLocalDate());
+        long written = generate(startDate, endDate);
+        try {
+            jobRunRepository.save(JobRun.finished(JOB_NAME, week, written));
+        } catch (Exception e) {
+            log.error("Could not record the weekly summaries of {} as done; only this node's event starts the notifications.", week, e);
+        }
+        eventPublisher.publishEvent(new WeeklySummariesGeneratedEvent(startDate, week, written));
+    }
 
-                 // Calculate all the summary metrics using the simplified helper methods.
-                 double averageMoodScore = calculateAverageMood(recentEntries);
-                 Mood dominantMood = findDominantMood(recentEntries);
-                 double averageSentimentScore = calculateAverageSentiment(recentEntries);
-                 Sentiment dominantSentiment = findDominantSentiment(recentEntries);
-                 int entryCount = recentEntries.size();
-
-                 WeeklySummary summary = weeklySummaryRepository.findByUserId(user.getId())
-                         .orElse(new WeeklySummary());
-
-                 summary.setUserId(user.getId());
-                 summary.setAverageMoodScore(averageMoodScore);
-                 summary.setDominantMood(dominantMood);
-                 summary.setAverageSentimentScore(averageSentimentScore);
-                 summary.setDominantSentiment(dominantSentiment);
-                 summary.setEntryCount(entryCount);
-                 summary.setLastCalculated(LocalDateTime.now());
-
-                 weeklySummaryRepository.save(summary);
-                 log.info("Successfully generated weekly summary for user: {}", user.getUsername());
-
-             }catch (Exception e) {
-                 log.error("Failed to generate weekly summary for user: {}", user.getUsername(), e);
-             }
+    private long generate(LocalDateTime startDate, LocalDateTime endDate) {
+        // The rollups are maintained on every write, so with them the job only finalizes the
+        // ISO week (Monday to Sunday) that ends today instead of scanning the entries.
+        if (journalRollupService.isEnabled()) {
+            String weekKey = RollupPeriod.WEEK.keyOf(endDate.minusDays(1).toLocalDate());
+            try {
+                long written = weeklySummaryRepositoryImpl.mergeWeeklySummariesFromRollups(weekKey);
+                log.info("Weekly summary generation job finished. {} summaries finalized from the {} rollups.", written, weekKey);
+                return written;
+            } catch (Exception e) {
+                log.error("Finalizing the weekly summaries from the rollups failed. Falling back to the entries.", e);
+            }
+        }
+        if (aggregationEnabled) {
+            try {
+                long written = weeklySummaryRepositoryImpl.mergeWeeklySummaries(startDate);
+                log.info("Weekly summary generation job finished. {} summaries merged by aggregation.", written);
+                return written;
+            } catch (Exception e) {
+                log.error("Weekly summary aggregation failed. Falling back to per-user summaries.", e);
+            }
         }
+        // The users eligible for the sentiment analysis report are split into id ranges
+        // that are summarized in parallel by all nodes; a failure only affects its own user.
+        // Summaries are buffered and upserted in bulks; a failed write is logged per user and counted
+        // in the failures of its own partition, on whichever node.
+        PartitionedJobRunner.RunResult result = partitionedJobRunner.run(JOB_NAME, Map.of(START_DATE, startDate.toString()));
         log.info("Weekly summary generation job finished.");
+        return result.processed() - result.failed();
+    }
+
+    private void summarizeUser(User user, LocalDateTime startDate, WeeklySummaryBulkWriter.Batch summaries) {
+        List<JournalEntry> recentEntries = journalEntryRepository.findByUserIdAndCreatedAtAfter(user.getId(), startDate);
+
+        if (recentEntries.isEmpty()) {
+            log.info("No entries found for user {} in the last week. Skipping summary.", user.getUsername());
+            return;
+        }
 
+        // Calculate all the summary metrics using the simplified helper methods.
+        double averageMoodScore = calculateAverageMood(recentEntries);
+        Mood dominantMood = findDominantMood(recentEntries);
+        double averageSentimentScore = calculateAverageSentiment(recentEntries);
+        Sentiment dominantSentiment = findDominantSentiment(recentEntries);
+        int entryCount = recentEntries.size();
+
+        // Upserted on userId by the bulk writer, so the stored summary is not read first.
+        WeeklySummary summary = new WeeklySummary();
+        summary.setUserId(user.getId());
+        summary.setAverageMoodScore(averageMoodScore);
+        summary.setDominantMood(dominantMood);
+        summary.setAverageSentimentScore(averageSentimentScore);
+        summary.setDominantSentiment(dominantSentiment);
+        summary.setEntryCount(entryCount);
+        summary.setLastCalculated(LocalDateTime.now());
+
+        summaries.add(summary);
+        log.info("Successfully generated weekly summary for user: {}", user.getUsername());
     }
 
     // --- SIMPLIFIED HELPER METHODS (NOT ONE-LINERS) ---
+    // Stateless and package-private so the JMH benchmarks (src/jmh/java) can measure them directly.
 
-    private double calculateAverageMood(List<JournalEntry> entries) {
+    static double calculateAverageMood(List<JournalEntry> entries) {
         double totalScore = 0.0;
         int moodCount = 0;
         for (JournalEntry entry : entries) {
@@ -105,7 +191,7 @@ public class WeeklySummaryScheduler {
         return (moodCount == 0) ? 0.0 : totalScore / moodCount;
     }
 
-    private Mood findDominantMood(List<JournalEntry> entries) {
+    static Mood findDominantMood(List<JournalEntry> entries) {
          HashMap<Mood,Integer>moodCount = new HashMap<>();
          for(JournalEntry entry : entries){
                if(moodCount.containsKey(entry.getMood())){
@@ -126,7 +212,7 @@ public class WeeklySummaryScheduler {
           return  dominatedMood;
     }
 
-    private double calculateAverageSentiment(List<JournalEntry> entries) {
+    static double calculateAverageSentiment(List<JournalEntry> entries) {
            double totalScore =0.0;
            int sentimentCount=0;
            for(JournalEntry journalEntry : entries){
@@ -138,7 +224,7 @@ public class WeeklySummaryScheduler {
            return (sentimentCount==0)?0.0:totalScore/sentimentCount;
     }
 
-    private Sentiment findDominantSentiment(List<JournalEntry> entries) {
+    static Sentiment findDominantSentiment(List<JournalEntry> entries) {
         Map<Sentiment, Integer> sentimentCounts = new HashMap<>();
         for(JournalEntry entry : entries){
             if(sentimentCounts.containsKey(entry.getSentiment())){
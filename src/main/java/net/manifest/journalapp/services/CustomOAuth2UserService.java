@@ -6,10 +6,12 @@ import lombok.extern.slf4j.Slf4j;
 import net.manifest.journalapp.entity.User;
 import net.manifest.journalapp.enums.AccountStatus;
 import net.manifest.journalapp.enums.Role;
+import net.manifest.journalapp.model.UserChangedEvent;
 import net.manifest.journalapp.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
@@ -34,6 +36,9 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * If we will be using Google with the openid as scope,it's an OIDC login.
      * In an OIDC flow, all the user's information (name, email, etc.) is securely packed inside a special token called the ID Token.
@@ -99,6 +104,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
             // Save and capture returned entity (MongoRepository.save returns the persisted entity)
             User saved = userRepository.save(user);
+            eventPublisher.publishEvent(new UserChangedEvent(saved.getId(), saved));
             log.info("Save returned entity: id={}, email={}, username={}", saved.getId(), saved.getEmail(), saved.getUsername());
 
             // Verify by re-reading from DB
@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
@@ -61,4 +62,24 @@ public class EmailService {
                log.error("Exception in sending mail to {}",to,e);
           }
     }
+
+    /**
+     * Sends the email in the caller's thread and reports failure to the caller, unlike the
+     * asynchronous methods above, so that a failed send can be retried.
+     * @throws MailException if the email could not be built or sent.
+     */
+    public void sendEmailNow(String to, String subject, String body, String senderName) {
+        MimeMessage email = javaMailSender.createMimeMessage();
+        try {
+            MimeMessageHelper mimeMessageHelper = new MimeMessageHelper(email, true);
+            mimeMessageHelper.setFrom(fromEmail, senderName);
+            mimeMessageHelper.setTo(to);
+            mimeMessageHelper.setSubject(subject);
+            mimeMessageHelper.setText(body);
+        } catch (Exception e) {
+            throw new MailPreparationException("Could not build the email to " + to, e);
+        }
+        javaMailSender.send(email);
+        log.info("Email successfully sent to '{}' from '{}' having email id '{}' ", to, senderName, fromEmail);
+    }
 }
@@ -0,0 +1,113 @@
+package net.manifest.journalapp.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.repository.JobLeaseRepositoryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes sure a scheduled job runs on only one node when several replicas fire the same trigger.
+ * <p>
+ * Each job has a lease in job_leases that one node takes atomically and renews while the job runs.
+ * If the node dies, the lease simply expires, so it needs no cleanup. Expiry times come from the
+ * nodes' clocks, which are assumed to be kept in sync (NTP).
+ */
+@Slf4j
+@Service
+public class JobLeaseService {
+
+    @Autowired
+    private JobLeaseRepositoryImpl jobLeaseRepositoryImpl;
+
+    // Defaults to "<hostname>:<random suffix>", unique per process.
+    @Value("${jobs.lease.node-id:}")
+    private String configuredNodeId;
+
+    // How long a lease lasts without renewal; it is renewed every third of it while held.
+    @Getter
+    @Value("${jobs.lease.ttl-seconds:120}")
+    private long ttlSeconds;
+
+    // A lease is kept at least this long after it was taken, even when the job ends sooner, so that a
+    // node whose trigger fires a little later (clock skew, a slow start) does not run the job again.
+    @Value("${jobs.lease.hold-at-least-seconds:300}")
+    private long holdAtLeastSeconds;
+
+    @Getter
+    private String nodeId;
+
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId.isBlank() ? hostName() + ":" + UUID.randomUUID().toString().substring(0, 8) : configuredNodeId;
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Job leases are taken as node {}.", nodeId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+    }
+
+    /**
+     * Runs the task on this node if it gets the named lease, renewing the lease until the task ends.
+     * @param name The lease name, normally the job name.
+     * @return false if another node holds the lease and the task was skipped.
+     */
+    public boolean runExclusively(String name, Runnable task) {
+        LocalDateTime acquiredAt = LocalDateTime.now();
+        if (!jobLeaseRepositoryImpl.tryAcquire(name, nodeId, acquiredAt, acquiredAt.plusSeconds(ttlSeconds))) {
+            log.info("Skipping {}: another node holds its lease.", name);
+            return false;
+        }
+        long period = Math.max(1, ttlSeconds / 3);
+        ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(() -> renew(name), period, period, TimeUnit.SECONDS);
+        try {
+            task.run();
+        } finally {
+            renewal.cancel(false);
+            LocalDateTime holdUntil = acquiredAt.plusSeconds(holdAtLeastSeconds);
+            try {
+                jobLeaseRepositoryImpl.extend(name, nodeId, holdUntil.isAfter(LocalDateTime.now()) ? holdUntil : LocalDateTime.now());
+            } catch (Exception e) {
+                log.warn("Could not release the lease {}; it expires on its own. Reason: {}", name, e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void renew(String name) {
+        try {
+            if (!jobLeaseRepositoryImpl.extend(name, nodeId, LocalDateTime.now().plusSeconds(ttlSeconds))) {
+                log.warn("The lease {} was taken over by another node while this node was still running it.", name);
+            }
+        } catch (Exception e) {
+            log.warn("Could not renew the lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
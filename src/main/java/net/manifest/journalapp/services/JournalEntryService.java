@@ -1,47 +1,80 @@
 package net.manifest.journalapp.services;
 
 import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.dto.journal.CommentResponseDTO;
+import net.manifest.journalapp.dto.journal.CursorPage;
 import net.manifest.journalapp.dto.journal.JournalEntryDTO;
 import net.manifest.journalapp.dto.journal.JournalEntryPatchDTO;
 import net.manifest.journalapp.dto.journal.JournalResponseDTO;
-import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.dto.journal.JournalSummaryDTO;
+import net.manifest.journalapp.enums.Mood;
 import net.manifest.journalapp.enums.Sentiment;
 import net.manifest.journalapp.mapper.JournalMapper;
+import net.manifest.journalapp.model.AuthenticatedUser;
+import net.manifest.journalapp.model.JournalCursor;
 import net.manifest.journalapp.repository.*;
+import net.manifest.journalapp.entity.CommentBucket;
 import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.entity.JournalRating;
 import net.manifest.journalapp.utils.journalutils.Comment;
-import net.manifest.journalapp.utils.journalutils.RatingStats;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Slf4j
 @Service
 public class JournalEntryService {
 
+    private static final int MAX_PREVIEW_LENGTH = 500;
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     @Autowired
     private JournalEntryRepository journalEntryRepository;
     @Autowired
+    private JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+    @Autowired
+    private CommentBucketRepository commentBucketRepository;
+    @Autowired
+    private CommentBucketRepositoryImpl commentBucketRepositoryImpl;
+    @Autowired
     private UserService userService;
     @Autowired
     private SentimentAnalysisService sentimentAnalysisService;
+    @Autowired
+    private SentimentAnalysisWorker sentimentAnalysisWorker;
+    @Autowired
+    private JournalRatingRepository journalRatingRepository;
+    @Autowired
+    private MigrationService migrationService;
+    @Autowired
+    private JournalRollupService journalRollupService;
 
 
     //GET ALL ENTRIES FOR A USER
-    @Transactional
-    public Page<JournalResponseDTO> getEntriesForUser(User user , Pageable pageable){
+    public Page<JournalSummaryDTO> getEntriesForUser(AuthenticatedUser user , Pageable pageable, int previewLength){
         try{
-            Page<JournalEntry>entriesPage = journalEntryRepository.findByUserId(user.getId(),pageable);
-            return entriesPage.map(entry ->JournalMapper.toResponseDTO(entry,user.getUsername()));
+            Page<JournalSummaryDTO>entriesPage = journalEntryRepositoryImpl.findSummaries(
+                    Criteria.where("userId").is(user.getId()), pageable, clampPreviewLength(previewLength));
+            entriesPage.forEach(summary -> summary.setCreatedBy(user.getUsername()));
+            return entriesPage;
         }catch (Exception e) {
             log.error("Error saving new journal entry for user: {}", user.getUsername(), e);
             throw new RuntimeException("Could not save journal entry.", e);
@@ -50,18 +83,26 @@ public class JournalEntryService {
 
     //CREATE
     @Transactional
-    public JournalResponseDTO saveNewEntry(JournalEntryDTO dto, User user) {
+    public JournalResponseDTO saveNewEntry(JournalEntryDTO dto, AuthenticatedUser user) {
         try {
             // 1. Use Mapper to convert DTO to an entity
               JournalEntry newEntry = JournalMapper.toEntity(dto);
             // 2. Set fields that are not in the DTO (ownership, timestamps)
               newEntry.setUserId(user.getId());
               newEntry.setCreatedAt(LocalDateTime.now());
-            //3. Analyze sentiment and set to entry
-            Sentiment analyzedSentiment = sentimentAnalysisService.analyze(newEntry);
-            newEntry.setSentiment(analyzedSentiment);
+            //3. Analyze sentiment and set to entry, or leave it pending for the background worker
+            if (sentimentAnalysisWorker.isEnabled()) {
+                newEntry.setSentimentRequestedAt(newEntry.getCreatedAt());
+            } else {
+                Sentiment analyzedSentiment = sentimentAnalysisService.score(newEntry);
+                newEntry.setSentiment(analyzedSentiment);
+            }
             // 4. Save the entity to the database
             JournalEntry savedEntry = journalEntryRepository.save(newEntry);
+            if (savedEntry.getSentimentRequestedAt() != null) {
+                sentimentAnalysisWorker.enqueue(savedEntry.getId());
+            }
+            journalRollupService.entryAdded(savedEntry);
             log.info("New journal entry saved with ID: {} for user: {}", savedEntry.getId(), user.getUsername());
             return JournalMapper.toResponseDTO(savedEntry,user.getUsername());
         }catch(Exception e){
@@ -73,7 +114,7 @@ public class JournalEntryService {
 
     //READ ONE JOURNAL FOR A USER
     @Transactional
-    public Optional<JournalResponseDTO> findEntryByIdForUser(ObjectId journalId, User user){
+    public Optional<JournalResponseDTO> findEntryByIdForUser(ObjectId journalId, AuthenticatedUser user){
             try{
                 Optional<JournalEntry> journalEntryOptional = journalEntryRepository.findByIdAndUserId(journalId, user.getId());
                 // The .map() function correctly handles the Optional.
@@ -88,28 +129,49 @@ public class JournalEntryService {
     }
 
     //UPDATE JOURNAL ENTRY - WHOLE
-    @Transactional
-    public Optional<JournalResponseDTO>updatedEntry(ObjectId journalId,JournalEntryDTO journalDTO,User user){
+    public Optional<JournalResponseDTO>updatedEntry(ObjectId journalId,JournalEntryDTO journalDTO,AuthenticatedUser user){
         try {
-            Optional<JournalEntry> entryToUpdateOptional = journalEntryRepository.findByIdAndUserId(journalId, user.getId());
-            if(entryToUpdateOptional.isEmpty()){
-                throw  new ResponseStatusException(HttpStatus.NOT_FOUND,"No journal entry found.");
+            // 1. Replace the editable fields with a single $set; comments and ratings are untouched.
+            LocalDateTime now = LocalDateTime.now();
+            Update update = new Update()
+                    .set("title", journalDTO.getTitle())
+                    .set("content", journalDTO.getContent())
+                    .set("mood", journalDTO.getMood())
+                    .set("location", journalDTO.getLocation())
+                    .set("weather", journalDTO.getWeather())
+                    .set("isPublic", Boolean.TRUE.equals(journalDTO.getIsPublic()))
+                    .set("tags", journalDTO.getTags())
+                    .set("updatedAt", now);
+            boolean sentimentPending = sentimentAnalysisWorker.isEnabled();
+            if (sentimentPending) {
+                update.set("sentimentRequestedAt", now);
+            }
+            JournalEntry entryToUpdate = journalEntryRepositoryImpl.updateOwnedEntry(journalId, user.getId(), update);
+            if(entryToUpdate == null){
+                return Optional.empty();
             }
-            JournalEntry entryToUpdate = entryToUpdateOptional.get();
+            // 2. Apply the same changes to the previous state to build the response.
+            String previousContent = entryToUpdate.getContent();
+            Mood previousMood = entryToUpdate.getMood();
+            Sentiment previousSentiment = entryToUpdate.getSentiment();
             entryToUpdate.setTitle(journalDTO.getTitle());
             entryToUpdate.setContent(journalDTO.getContent());
             entryToUpdate.setMood(journalDTO.getMood());
             entryToUpdate.setLocation(journalDTO.getLocation());
             entryToUpdate.setWeather(journalDTO.getWeather());
-            entryToUpdate.setPublic(journalDTO.getIsPublic());
+            entryToUpdate.setPublic(Boolean.TRUE.equals(journalDTO.getIsPublic()));
             entryToUpdate.setTags(journalDTO.getTags());
-            entryToUpdate.setUpdatedAt(LocalDateTime.now());
-            //Analyze sentiment and set to entry
-            Sentiment analyzedSentiment = sentimentAnalysisService.analyze(entryToUpdate);
-            entryToUpdate.setSentiment(analyzedSentiment);
-            JournalEntry savedEntry = journalEntryRepository.save(entryToUpdate);
-            log.info("Replaced (PUT) journal entry with ID: {}", savedEntry.getId());
-            return Optional.of(JournalMapper.toResponseDTO(savedEntry, user.getUsername()));
+            entryToUpdate.setUpdatedAt(now);
+            //3. Re-analyze sentiment only if its inputs changed, or let the background worker do it
+            if (sentimentPending) {
+                sentimentAnalysisWorker.enqueue(journalId);
+            } else {
+                refreshSentimentIfChanged(entryToUpdate, previousContent, previousMood);
+            }
+            journalRollupService.entryChanged(entryToUpdate.getUserId(), entryToUpdate.getCreatedAt(),
+                    previousMood, previousSentiment, entryToUpdate.getMood(), entryToUpdate.getSentiment());
+            log.info("Replaced (PUT) journal entry with ID: {}", entryToUpdate.getId());
+            return Optional.of(JournalMapper.toResponseDTO(entryToUpdate, user.getUsername()));
         } catch (Exception e) {
             log.error("Error updating (PUT) journal entry {} for user {}", journalId, user.getUsername(), e);
             throw new RuntimeException("Could not update journal entry.", e);
@@ -117,14 +179,32 @@ public class JournalEntryService {
     }
 
     //PATCH THE JOURNAL ENTRY
-    @Transactional
-    public Optional<JournalResponseDTO>patchEntry(ObjectId journalId, JournalEntryPatchDTO patchDto, User user){
+    public Optional<JournalResponseDTO>patchEntry(ObjectId journalId, JournalEntryPatchDTO patchDto, AuthenticatedUser user){
         try{
-            Optional<JournalEntry> journalToUpdateOptional = journalEntryRepository.findByIdAndUserId(journalId, user.getId());
-            if(journalToUpdateOptional.isEmpty()){
-               throw  new ResponseStatusException(HttpStatus.NOT_FOUND,"No journal entry found.");
+            // 1. Translate the non-null fields of the patch into a single $set.
+            LocalDateTime now = LocalDateTime.now();
+            Update update = new Update().set("updatedAt", now);
+            if (patchDto.getTitle() != null) update.set("title", patchDto.getTitle());
+            if (patchDto.getContent() != null) update.set("content", patchDto.getContent());
+            if (patchDto.getMood() != null) update.set("mood", patchDto.getMood());
+            if (patchDto.getLocation() != null) update.set("location", patchDto.getLocation());
+            if (patchDto.getWeather() != null) update.set("weather", patchDto.getWeather());
+            if (patchDto.getIsPublic() != null) update.set("isPublic", patchDto.getIsPublic());
+            if (patchDto.getTags() != null) update.set("tags", patchDto.getTags());
+            // Whether content or mood really changed is only known after the write, so in async mode any patch to them requests a rescore.
+            boolean sentimentPending = sentimentAnalysisWorker.isEnabled()
+                    && (patchDto.getContent() != null || patchDto.getMood() != null);
+            if (sentimentPending) {
+                update.set("sentimentRequestedAt", now);
             }
-            JournalEntry entryToUpdate = journalToUpdateOptional.get();
+            JournalEntry entryToUpdate = journalEntryRepositoryImpl.updateOwnedEntry(journalId, user.getId(), update);
+            if(entryToUpdate == null){
+               return Optional.empty();
+            }
+            // 2. Apply the same changes to the previous state to build the response.
+            String previousContent = entryToUpdate.getContent();
+            Mood previousMood = entryToUpdate.getMood();
+            Sentiment previousSentiment = entryToUpdate.getSentiment();
             if (patchDto.getTitle() != null) entryToUpdate.setTitle(patchDto.getTitle());
             if (patchDto.getContent() != null) entryToUpdate.setContent(patchDto.getContent());
             if (patchDto.getMood() != null) entryToUpdate.setMood(patchDto.getMood());
@@ -132,19 +212,43 @@ public class JournalEntryService {
             if (patchDto.getWeather() != null) entryToUpdate.setWeather(patchDto.getWeather());
             if (patchDto.getIsPublic() != null) entryToUpdate.setPublic(patchDto.getIsPublic());
             if (patchDto.getTags() != null) entryToUpdate.setTags(patchDto.getTags());
-            entryToUpdate.setUpdatedAt(LocalDateTime.now());
-            //Analyze sentiment and set to entry
-            Sentiment analyzedSentiment = sentimentAnalysisService.analyze(entryToUpdate);
-            entryToUpdate.setSentiment(analyzedSentiment);
-            JournalEntry savedEntry = journalEntryRepository.save(entryToUpdate);
-            log.info("Patched journal entry with ID: {}", savedEntry.getId());
-            return Optional.of(JournalMapper.toResponseDTO(savedEntry, user.getUsername()));
+            entryToUpdate.setUpdatedAt(now);
+            //3. Re-analyze sentiment only if its inputs changed, or let the background worker do it
+            if (sentimentPending) {
+                sentimentAnalysisWorker.enqueue(journalId);
+            } else {
+                refreshSentimentIfChanged(entryToUpdate, previousContent, previousMood);
+            }
+            journalRollupService.entryChanged(entryToUpdate.getUserId(), entryToUpdate.getCreatedAt(),
+                    previousMood, previousSentiment, entryToUpdate.getMood(), entryToUpdate.getSentiment());
+            log.info("Patched journal entry with ID: {}", entryToUpdate.getId());
+            return Optional.of(JournalMapper.toResponseDTO(entryToUpdate, user.getUsername()));
         } catch (RuntimeException e) {
             log.error("Error patching journal entry {} for user {}", journalId, user.getUsername(), e);
             throw new RuntimeException("Could not patch journal entry.", e);
         }
     }
 
+    /**
+     * Sentiment depends only on the content and the mood. When either changed, it is
+     * re-analyzed, and written back in a second small update only if the result or the
+     * lexicon version differs. The entry keeps its previous sentiment if the update did not
+     * apply because the entry was edited again in the meantime.
+     */
+    private void refreshSentimentIfChanged(JournalEntry entry, String previousContent, Mood previousMood) {
+        if (Objects.equals(previousContent, entry.getContent()) && previousMood == entry.getMood()) {
+            return;
+        }
+        Integer previousLexiconVersion = entry.getLexiconVersion();
+        Sentiment analyzedSentiment = sentimentAnalysisService.score(entry);
+        if (analyzedSentiment != entry.getSentiment() || !Objects.equals(previousLexiconVersion, entry.getLexiconVersion())) {
+            if (journalEntryRepositoryImpl.updateSentiment(entry.getId(), entry.getContent(), entry.getMood(),
+                    analyzedSentiment, entry.getLexiconVersion())) {
+                entry.setSentiment(analyzedSentiment);
+            }
+        }
+    }
+
     //DELETE JOURNAL ENTRY
 
     /**
@@ -155,13 +259,16 @@ public class JournalEntryService {
      * @return true if the entry was deleted, false otherwise.
      */
     @Transactional
-    public boolean deleteJournalEntry(ObjectId journalId,User user){
+    public boolean deleteJournalEntry(ObjectId journalId,AuthenticatedUser user){
          try{
              Optional<JournalEntry>journalEntryOptional = (user==null)
                      ? journalEntryRepository.findById(journalId) // Admin : find by ID only
                      : journalEntryRepository.findByIdAndUserId(journalId,user.getId());  // User: find by ID and owner.
               if(journalEntryOptional.isPresent()){
                   journalEntryRepository.delete(journalEntryOptional.get());
+                  commentBucketRepository.deleteByJournalId(journalId);
+                  journalRatingRepository.deleteByJournalId(journalId);
+                  journalRollupService.entryRemoved(journalEntryOptional.get());
 
                   if (user != null) {
                       // This is a standard user deleting their own entry.
@@ -183,12 +290,13 @@ public class JournalEntryService {
     }
 
     //FILTERING BY TAGs
-    public Page<JournalResponseDTO>getEntriesForUserByTag(User user ,String tag , Pageable pageable){
+    public Page<JournalSummaryDTO>getEntriesForUserByTag(AuthenticatedUser user ,String tag , Pageable pageable, int previewLength){
 
         try{
-            Page<JournalEntry>entriesPage = journalEntryRepository.findByUserIdAndTagsContains(user.getId(),tag,pageable);
-            return entriesPage.map(entry ->
-                    JournalMapper.toResponseDTO(entry,user.getUsername()));
+            Page<JournalSummaryDTO>entriesPage = journalEntryRepositoryImpl.findSummaries(
+                    Criteria.where("userId").is(user.getId()).and("tags").is(tag), pageable, clampPreviewLength(previewLength));
+            entriesPage.forEach(summary -> summary.setCreatedBy(user.getUsername()));
+            return entriesPage;
         }catch (Exception e){
             log.error("Error in filtering the entries using tag");
             throw new RuntimeException("Error in filtering the entries by tag.",e);
@@ -203,18 +311,19 @@ public class JournalEntryService {
     /**
      * Retrieves a paginated list of all journal entries that have been marked as public.
      * @param pageable Pagination information (page, size, sort).
-     * @return A Page of public JournalResponseDTO objects.
+     * @param previewLength The number of content characters to include in each summary; 0 for none.
+     * @return A Page of public JournalSummaryDTO objects.
      */
 
-    public Page<JournalResponseDTO> getPublicEntries(Pageable pageable) {
+    public Page<JournalSummaryDTO> getPublicEntries(Pageable pageable, int previewLength) {
            try{
-               // 1. Fetch the page of public entities from the repository.
-               Page<JournalEntry> publicJournalEntry = journalEntryRepository.findByIsPublic(true,pageable);
-               // 2. Map the entities to response DTOs.
+               // 1. Fetch the page of public entry summaries from the repository.
+               Page<JournalSummaryDTO> publicJournalEntry = journalEntryRepositoryImpl.findSummaries(
+                       Criteria.where("isPublic").is(true), pageable, clampPreviewLength(previewLength));
+               // 2. Authors of public entries stay anonymous.
+               publicJournalEntry.forEach(summary -> summary.setCreatedBy("A User"));
                log.info("Public journal entries fetched successfully.");
-               return publicJournalEntry.map(
-                       entry -> JournalMapper
-                               .toResponseDTO(entry,"A User"));
+               return publicJournalEntry;
            }catch (Exception e){
                log.error("Error fetching public journal entries.", e);
                throw new RuntimeException("Could not fetch public journal entries.", e);
@@ -225,24 +334,81 @@ public class JournalEntryService {
      * Retrieves a paginated list of public journal entries that are tagged with a specific tag.
      * @param tag The tag to filter by.
      * @param pageable The pagination information.
-     * @return A Page of matching public JournalResponseDTO objects.
+     * @param previewLength The number of content characters to include in each summary; 0 for none.
+     * @return A Page of matching public JournalSummaryDTO objects.
      */
 
-    public Page<JournalResponseDTO> getPublicEntriesByTag(String tag,Pageable pageable) {
+    public Page<JournalSummaryDTO> getPublicEntriesByTag(String tag,Pageable pageable, int previewLength) {
         try{
-            // 1. Fetch the page of public entities from the repository.
-            Page<JournalEntry> publicJournalEntry = journalEntryRepository.findByIsPublicAndTagsContains(true,tag,pageable);
-            // 2. Map the entities to response DTOs.
+            // 1. Fetch the page of public entry summaries from the repository.
+            Page<JournalSummaryDTO> publicJournalEntry = journalEntryRepositoryImpl.findSummaries(
+                    Criteria.where("isPublic").is(true).and("tags").is(tag), pageable, clampPreviewLength(previewLength));
+            // 2. Authors of public entries stay anonymous.
+            publicJournalEntry.forEach(summary -> summary.setCreatedBy("A User"));
             log.info("Public journal entries fetched successfully using tag.");
-            return publicJournalEntry.map(
-                    entry -> JournalMapper
-                            .toResponseDTO(entry,"A User"));
+            return publicJournalEntry;
         }catch (Exception e){
             log.error("Error fetching public journal entries with tag '{}'", tag, e);
             throw new RuntimeException("Could not fetch public journal entries by tag.", e);
         }
     }
 
+    /**
+     * Retrieves one page of the user's timeline using keyset pagination on (createdAt, _id).
+     * Unlike the Page variant, deep pages cost the same as the first one and no count is run.
+     * @param user The owner of the entries.
+     * @param tag An optional tag to filter by.
+     * @param cursor The 'nextCursor' of the previous page, or null for the first page.
+     * @param size The page size (1-100).
+     * @param previewLength The number of content characters to include in each summary; 0 for none.
+     * @return The page of summaries and the cursor of the next page.
+     */
+    public CursorPage<JournalSummaryDTO> getEntriesForUserAfter(AuthenticatedUser user, String tag, String cursor, int size, int previewLength) {
+        Criteria criteria = Criteria.where("userId").is(user.getId());
+        if (tag != null) {
+            criteria = criteria.and("tags").is(tag);
+        }
+        return findSummariesAfter(criteria, cursor, size, previewLength, user.getUsername());
+    }
+
+    /**
+     * Retrieves one page of the public feed using keyset pagination on (createdAt, _id).
+     * @param tag An optional tag to filter by.
+     * @param cursor The 'nextCursor' of the previous page, or null for the first page.
+     * @param size The page size (1-100).
+     * @param previewLength The number of content characters to include in each summary; 0 for none.
+     * @return The page of summaries and the cursor of the next page.
+     */
+    public CursorPage<JournalSummaryDTO> getPublicEntriesAfter(String tag, String cursor, int size, int previewLength) {
+        Criteria criteria = Criteria.where("isPublic").is(true);
+        if (tag != null) {
+            criteria = criteria.and("tags").is(tag);
+        }
+        return findSummariesAfter(criteria, cursor, size, previewLength, "A User");
+    }
+
+    private CursorPage<JournalSummaryDTO> findSummariesAfter(Criteria criteria, String cursor, int size, int previewLength, String createdBy) {
+        JournalCursor after = (cursor == null || cursor.isBlank()) ? null : JournalCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+
+        // Read one extra summary to know whether there is a next page.
+        List<JournalSummaryDTO> summaries = new ArrayList<>(journalEntryRepositoryImpl.findSummariesAfter(
+                criteria, after, pageSize + 1, clampPreviewLength(previewLength)));
+        String nextCursor = null;
+        if (summaries.size() > pageSize) {
+            summaries = summaries.subList(0, pageSize);
+            JournalSummaryDTO last = summaries.get(pageSize - 1);
+            nextCursor = new JournalCursor(last.getCreatedAt(), new ObjectId(last.getId())).encode();
+        }
+        summaries.forEach(summary -> summary.setCreatedBy(createdBy));
+        return new CursorPage<>(summaries, nextCursor);
+    }
+
+    // Previews are meant for list views; anything longer should use the single-entry endpoints.
+    private static int clampPreviewLength(int previewLength) {
+        return Math.max(0, Math.min(previewLength, MAX_PREVIEW_LENGTH));
+    }
+
 
 
     /**
@@ -269,12 +435,12 @@ public class JournalEntryService {
      * @param commentText The text of the comment.
      * @param user The user posting the comment.
      */
-    @Transactional
-    public void addComment(ObjectId journalId, String commentText, User user) {
+    public void addComment(ObjectId journalId, String commentText, AuthenticatedUser user) {
          try{
-             // 1. Find the public entry. Throws an exception if not found or not public.
-             JournalEntry entry = journalEntryRepository.findByIdAndIsPublic(journalId, true)
-                     .orElseThrow(() -> new RuntimeException("Public journal entry not found or is private."));
+             // 1. Only public entries take comments.
+             if (!journalEntryRepository.existsByIdAndIsPublic(journalId, true)) {
+                 throw new RuntimeException("Public journal entry not found or is private.");
+             }
 
              // 2. Create and populate the new comment object.
 
@@ -283,9 +449,10 @@ public class JournalEntryService {
              comment.setUsername(user.getUsername());
              comment.setText(commentText);
              comment.setCreatedAt(LocalDateTime.now());
-             // 3. Add the comment to the entry's list and save.
-             entry.getComments().add(comment);
-             journalEntryRepository.save(entry);
+             // 3. Append it to the entry's newest comment bucket with a single push,
+             //    and count it on the entry only once it is stored.
+             commentBucketRepositoryImpl.appendComment(journalId, comment);
+             commentBucketRepositoryImpl.incrementCommentCount(journalId);
              log.info("User {} added a comment to public journal entry {}", user.getUsername(), journalId);
          } catch (Exception e) {
              log.error("Error adding comment to journal entry {}:", journalId, e);
@@ -293,42 +460,130 @@ public class JournalEntryService {
          }
     }
 
+    /**
+     * Reads the comments of a public entry, oldest first, one page at a time.
+     * The cursor is "bucketSeq:index", the position of the next comment to return.
+     * @param journalId The ID of the public entry.
+     * @param cursor The cursor from the previous page, or null for the first page.
+     * @param size The page size (1-100).
+     * @return The page of comments, or empty if the entry is not found or not public.
+     */
+    public Optional<CursorPage<CommentResponseDTO>> getComments(ObjectId journalId, String cursor, int size) {
+        if (!journalEntryRepository.existsByIdAndIsPublic(journalId, true)) {
+            return Optional.empty();
+        }
+        int pageSize = Math.max(1, Math.min(size, CommentBucket.BUCKET_SIZE));
+
+        Integer fromBucket = null;
+        int skip = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            try {
+                fromBucket = Integer.parseInt(parts[0]);
+                skip = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            if (skip < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        // A page starts part-way into one bucket and can span at most two more.
+        Pageable buckets = PageRequest.of(0, pageSize / CommentBucket.BUCKET_SIZE + 2, Sort.by("seq"));
+        List<CommentBucket> bucketList = (fromBucket == null)
+                ? commentBucketRepository.findByJournalId(journalId, buckets)
+                : commentBucketRepository.findByJournalIdAndSeqGreaterThanEqual(journalId, fromBucket, buckets);
+
+        List<CommentResponseDTO> items = new ArrayList<>(pageSize);
+        String nextCursor = null;
+        for (CommentBucket bucket : bucketList) {
+            List<Comment> comments = bucket.getComments();
+            for (int i = skip; i < comments.size() && nextCursor == null; i++) {
+                if (items.size() == pageSize) {
+                    nextCursor = bucket.getSeq() + ":" + i;
+                } else {
+                    items.add(JournalMapper.toCommentDTO(comments.get(i)));
+                }
+            }
+            skip = 0;
+            if (nextCursor != null) {
+                break;
+            }
+        }
+        // Every fetched bucket was consumed but more may follow: continue after the last one read.
+        if (nextCursor == null && bucketList.size() == buckets.getPageSize()) {
+            CommentBucket last = bucketList.get(bucketList.size() - 1);
+            nextCursor = last.getSeq() + ":" + last.getComments().size();
+        }
+        return Optional.of(new CursorPage<>(items, nextCursor));
+    }
+
 
     /**
-     * Adds a rating to a public journal entry and recalculates the average.
+     * Adds a rating to a public journal entry. The rating is first inserted into journal_ratings,
+     * whose unique (journalId, userId) index keeps a user from rating the same entry twice; the
+     * running sum and count are then incremented in a single conditional update, so concurrent
+     * ratings are never lost. Nothing is read: if the entry is missing or private, the conditional
+     * update matches nothing and the rating is removed again.
      * @param journalId The ID of the public entry.
      * @param rating The rating value (e.g., 1-5).
      * @param user The user submitting the rating.
      */
-    @Transactional
-    public void addRating(ObjectId journalId, int rating, User user) {
+    public void addRating(ObjectId journalId, int rating, AuthenticatedUser user) {
 
         try{
             // 1. Validate the input rating.
             if (rating < 1 || rating > 5) {
                 throw new IllegalArgumentException("Rating must be between 1 and 5.");
             }
-            // 2. Find the public entry.
-            JournalEntry entry = journalEntryRepository.findByIdAndIsPublic(journalId,true)
-                    .orElseThrow(()->new RuntimeException("Public journal entry not found or is private."));
-
-            // 3. Get the current stats and recalculate the new average.
-            RatingStats stats = entry.getRatingStats();
-            double currentTotalRating = stats.getAverageRating() * stats.getRatingCount();
-            int newCount = stats.getRatingCount()+1;
-            double newAverage = (currentTotalRating + rating) / newCount;
-
-            // 4. Update the stats object.
-            stats.setRatingCount(newCount);
-            // Round to 2 decimal places for a clean average
-            stats.setAverageRating(Math.round(newAverage * 100.0) / 100.0);
-
-            entry.setRatingStats(stats);
-            journalEntryRepository.save(entry);
+            // 2. Record the user's rating; the unique index rejects a second one.
+            JournalRating journalRating = new JournalRating();
+            journalRating.setJournalId(journalId);
+            journalRating.setUserId(user.getId());
+            journalRating.setRating(rating);
+            journalRating.setCreatedAt(LocalDateTime.now());
+            try {
+                journalRating = journalRatingRepository.insert(journalRating);
+            } catch (DuplicateKeyException e) {
+                throw new RuntimeException("You have already rated this journal entry.");
+            }
+
+            // 3. Apply it to the entry's totals in place; no document is read or rewritten.
+            boolean applied;
+            try {
+                applied = journalEntryRepositoryImpl.addRating(journalId, rating);
+            } catch (RuntimeException e) {
+                journalRatingRepository.deleteById(journalRating.getId());
+                throw e;
+            }
+            if (!applied) {
+                journalRatingRepository.deleteById(journalRating.getId());
+                throw new RuntimeException("Public journal entry not found or is private.");
+            }
             log.info("User {} rated public journal entry {} with a score of {}", user.getUsername(), journalId, rating);
         } catch (Exception e) {
             log.error("Error adding rating to journal entry {}:", journalId, e);
             throw e; // Re-throw the exception for the controller to handle
         }
     }
+
+    /**
+     * Rebuilds, once per database, the running rating sum of entries rated before it was stored.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateRatings() {
+        migrationService.runOnce("rating-sums", journalEntryRepositoryImpl::backfillRatingSums);
+    }
+
+    /**
+     * Moves, once per database, the comments still embedded in journal entries into buckets.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateEmbeddedComments() {
+        migrationService.runOnce("embedded-comments-to-buckets", commentBucketRepositoryImpl::migrateEmbeddedComments);
+    }
 }
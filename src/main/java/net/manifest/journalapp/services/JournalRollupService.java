@@ -0,0 +1,221 @@
+package net.manifest.journalapp.services;
+
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.dto.journal.JournalRollupDTO;
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.entity.JournalRollup;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.RollupPeriod;
+import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.mapper.JournalMapper;
+import net.manifest.journalapp.model.RollupDelta;
+import net.manifest.journalapp.repository.JournalRollupRepository;
+import net.manifest.journalapp.repository.JournalRollupRepositoryImpl;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the per-user day and ISO-week rollups (journal_rollups) in step with the journal entries.
+ * <p>
+ * Every write of an entry calls one of the methods below with what changed, and the rollups are
+ * adjusted with atomic $inc upserts, so reading the current stats is a single lookup by id.
+ * Rollups are derived data: a failed update is logged instead of failing the write, and
+ * rebuild() recomputes them from the entries (it also runs once on startup while the collection is empty).
+ */
+@Slf4j
+@Service
+public class JournalRollupService {
+
+    private static final int MAX_RANGE_PERIODS = 366;
+
+    /**
+     * Set by background sentiment bulk updates to an id unique to the bulk, next to the sentiment,
+     * so that the entries the bulk actually wrote can be found afterwards (see sentimentsWritten).
+     */
+    public static final String SENTIMENT_WRITE_FIELD = "sentimentWriteId";
+
+    @Autowired
+    private JournalRollupRepository journalRollupRepository;
+
+    @Autowired
+    private JournalRollupRepositoryImpl journalRollupRepositoryImpl;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${rollups.enabled:true}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void entryAdded(JournalEntry entry) {
+        if (entry.getCreatedAt() == null) {
+            return;
+        }
+        apply(List.of(delta(entry.getUserId(), entry.getCreatedAt())
+                .entries(1)
+                .mood(entry.getMood(), 1)
+                .sentiment(entry.getSentiment(), 1)));
+    }
+
+    public void entryRemoved(JournalEntry entry) {
+        if (entry.getCreatedAt() == null) {
+            return;
+        }
+        apply(List.of(delta(entry.getUserId(), entry.getCreatedAt())
+                .entries(-1)
+                .mood(entry.getMood(), -1)
+                .sentiment(entry.getSentiment(), -1)));
+    }
+
+    /**
+     * Moves an edited entry from its previous mood and sentiment to the new ones. Nothing is
+     * written when both are unchanged.
+     */
+    public void entryChanged(ObjectId userId, LocalDateTime createdAt,
+                             Mood previousMood, Sentiment previousSentiment, Mood mood, Sentiment sentiment) {
+        if (createdAt == null) {
+            return;
+        }
+        apply(List.of(delta(userId, createdAt)
+                .mood(previousMood, -1)
+                .mood(mood, 1)
+                .sentiment(previousSentiment, -1)
+                .sentiment(sentiment, 1)));
+    }
+
+    /**
+     * Accounts for sentiments written by a background bulk update (the async worker, the rescore job).
+     * Those updates are conditional, and each one that matched also set SENTIMENT_WRITE_FIELD to the
+     * bulk's id; only the entries carrying that id are applied. An entry the bulk skipped because it
+     * was edited meanwhile is left to the edit, which applies its own change.
+     * @param entries The entries as they were read, with their previous sentiment.
+     * @param scored The sentiment computed for each entry id.
+     * @param writeId The id the bulk set in SENTIMENT_WRITE_FIELD.
+     */
+    public void sentimentsWritten(List<JournalEntry> entries, Map<ObjectId, Sentiment> scored, ObjectId writeId) {
+        if (!enabled) {
+            return;
+        }
+        Map<ObjectId, JournalEntry> changed = new HashMap<>();
+        for (JournalEntry entry : entries) {
+            if (entry.getCreatedAt() != null && entry.getSentiment() != scored.get(entry.getId())) {
+                changed.put(entry.getId(), entry);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        try {
+            Query query = new Query(Criteria.where("_id").in(changed.keySet()).and(SENTIMENT_WRITE_FIELD).is(writeId));
+            query.fields().include("_id");
+            List<RollupDelta> deltas = new ArrayList<>();
+            for (JournalEntry written : mongoTemplate.find(query, JournalEntry.class)) {
+                JournalEntry read = changed.get(written.getId());
+                deltas.add(delta(read.getUserId(), read.getCreatedAt())
+                        .sentiment(read.getSentiment(), -1)
+                        .sentiment(scored.get(written.getId()), 1));
+            }
+            journalRollupRepositoryImpl.increment(deltas);
+        } catch (Exception e) {
+            log.error("Failed to update the rollups for {} re-scored journal entries.", changed.size(), e);
+        }
+    }
+
+    /**
+     * @return The stats of the day or week containing today; all zero if the user wrote nothing in it yet.
+     */
+    public JournalRollupDTO current(ObjectId userId, RollupPeriod period) {
+        LocalDate today = LocalDate.now();
+        JournalRollup rollup = journalRollupRepository.findById(JournalRollup.idOf(userId, period, today))
+                .orElseGet(() -> {
+                    JournalRollup empty = new JournalRollup();
+                    empty.setUserId(userId);
+                    empty.setPeriod(period);
+                    empty.setPeriodKey(period.keyOf(today));
+                    empty.setPeriodStart(period.startOf(today));
+                    return empty;
+                });
+        return JournalMapper.toRollupDTO(rollup);
+    }
+
+    /**
+     * @return The stats of the user's periods starting within [from, to] that have activity, newest first.
+     * @throws IllegalArgumentException if the range is reversed or longer than 366 periods.
+     */
+    public List<JournalRollupDTO> range(ObjectId userId, RollupPeriod period, LocalDate from, LocalDate to) {
+        LocalDate start = period.startOf(from);
+        long maxDays = (period == RollupPeriod.WEEK) ? 7L * MAX_RANGE_PERIODS : MAX_RANGE_PERIODS;
+        if (to.isBefore(start) || start.plusDays(maxDays).isBefore(to)) {
+            throw new IllegalArgumentException("The range must be ordered and span at most " + MAX_RANGE_PERIODS + " periods.");
+        }
+        return journalRollupRepository.findInRange(userId, period, start, to, Sort.by(Sort.Direction.DESC, "periodStart"))
+                .stream()
+                .filter(rollup -> rollup.getEntryCount() > 0)
+                .map(JournalMapper::toRollupDTO)
+                .toList();
+    }
+
+    public void deleteForUser(ObjectId userId) {
+        journalRollupRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Recomputes all rollups from the journal entries.
+     * @return The number of rollups afterwards.
+     */
+    public long rebuild() {
+        long rollups = journalRollupRepositoryImpl.rebuildFromEntries();
+        log.info("Rebuilt journal rollups from the entries: {} rollups.", rollups);
+        return rollups;
+    }
+
+    /**
+     * Builds the rollups of the existing entries the first time the feature runs.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!enabled || mongoTemplate.estimatedCount(JournalRollup.class) > 0 || mongoTemplate.estimatedCount(JournalEntry.class) == 0) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Initial build of the journal rollups failed.", e);
+        }
+    }
+
+    private static RollupDelta delta(ObjectId userId, LocalDateTime createdAt) {
+        return new RollupDelta(userId, createdAt.toLocalDate());
+    }
+
+    private void apply(List<RollupDelta> deltas) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            journalRollupRepositoryImpl.increment(deltas);
+        } catch (Exception e) {
+            log.error("Failed to update the journal rollups of user {}.", deltas.get(0).getUserId(), e);
+        }
+    }
+}
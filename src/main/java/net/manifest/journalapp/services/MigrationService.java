@@ -0,0 +1,36 @@
+package net.manifest.journalapp.services;
+
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.entity.Migration;
+import net.manifest.journalapp.repository.MigrationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs one-off data migrations at startup, once per database. A migration is marked done only
+ * after it has finished, so one interrupted by a crash runs again on the next startup; migrations
+ * must therefore be safe to repeat. Nodes starting together may both run it, for the same reason.
+ */
+@Slf4j
+@Service
+public class MigrationService {
+
+    @Autowired
+    private MigrationRepository migrationRepository;
+
+    /**
+     * @param name The migration's unique name.
+     * @param migration Migrates the data and returns the number of documents migrated.
+     */
+    public void runOnce(String name, LongSupplier migration) {
+        if (migrationRepository.existsById(name)) {
+            return;
+        }
+        long migrated = migration.getAsLong();
+        migrationRepository.save(new Migration(name, LocalDateTime.now()));
+        log.info("Migration '{}' done: {} documents migrated.", name, migrated);
+    }
+}
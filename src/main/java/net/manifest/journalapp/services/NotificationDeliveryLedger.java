@@ -0,0 +1,180 @@
+package net.manifest.journalapp.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.model.SentimentData;
+import net.manifest.journalapp.repository.NotificationDeliveryRepositoryImpl;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes the weekly sentiment emails idempotent per user and ISO week, through the
+ * notification_deliveries ledger.
+ * <p>
+ * A sender claims the email's key atomically before sending and marks it sent afterwards; a failed
+ * email releases its claim for the retry. Keys sent recently are also kept in a local cache, so
+ * most duplicates (Kafka redeliveries, replays) are dropped without a query.
+ * <p>
+ * If a sender dies between sending and marking the email sent, the email can go out again once
+ * its claim expires ('claim-seconds'): delivery is at most once per claim, not across crashes.
+ */
+@Slf4j
+@Service
+public class NotificationDeliveryLedger {
+
+    @Autowired
+    private NotificationDeliveryRepositoryImpl notificationDeliveryRepositoryImpl;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    // How long a claim keeps other senders away; it must cover sending one email.
+    @Value("${notifications.delivery.claim-seconds:300}")
+    private long claimSeconds;
+
+    @Value("${notifications.delivery.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${notifications.delivery.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    @Value("${notifications.delivery.cache.ttl-hours:168}")
+    private long cacheTtlHours;
+
+    private Cache<String, Boolean> recentlySent;
+
+    private final AtomicLong duplicatesDropped = new AtomicLong();
+
+    /**
+     * A held claim on one email. The key is null for messages without one (produced before the
+     * ledger existed), which are sent without deduplication.
+     */
+    public record Claim(String key, String claimedBy) {
+    }
+
+    @PostConstruct
+    public void init() {
+        recentlySent = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofHours(cacheTtlHours))
+                .build();
+    }
+
+    /**
+     * @return The email's key, "<userId>:<isoWeek>", or null if the message has no key.
+     */
+    public static String keyOf(SentimentData data) {
+        if (data.getUserId() == null || data.getIsoWeek() == null) {
+            return null;
+        }
+        return data.getUserId() + ":" + data.getIsoWeek();
+    }
+
+    /**
+     * Looks the keys of a batch up in the cache, and the rest in one ledger query.
+     * @return The keys among the messages whose email was already sent.
+     */
+    public Set<String> alreadySent(Collection<SentimentData> messages) {
+        Set<String> sent = new HashSet<>();
+        Set<String> unknown = new HashSet<>();
+        for (SentimentData data : messages) {
+            String key = keyOf(data);
+            if (key == null) {
+                continue;
+            }
+            if (recentlySent.getIfPresent(key) != null) {
+                sent.add(key);
+            } else {
+                unknown.add(key);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            Set<String> found = notificationDeliveryRepositoryImpl.findSentIds(unknown);
+            found.forEach(key -> recentlySent.put(key, Boolean.TRUE));
+            sent.addAll(found);
+        }
+        return sent;
+    }
+
+    /**
+     * Claims an email before it is sent.
+     * @return The claim to pass to markSent or release, or null if the email is a duplicate and must be dropped.
+     */
+    public Claim claim(SentimentData data) {
+        String key = keyOf(data);
+        if (key == null || !ObjectId.isValid(data.getUserId())) {
+            return new Claim(null, null);
+        }
+        if (recentlySent.getIfPresent(key) != null) {
+            duplicatesDropped.incrementAndGet();
+            return null;
+        }
+        String claimedBy = jobLeaseService.getNodeId() + ":" + UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        boolean claimed = notificationDeliveryRepositoryImpl.tryClaim(key, new ObjectId(data.getUserId()), data.getIsoWeek(),
+                claimedBy, now, now.plusSeconds(claimSeconds), now.plusDays(retentionDays));
+        if (!claimed) {
+            duplicatesDropped.incrementAndGet();
+            return null;
+        }
+        return new Claim(key, claimedBy);
+    }
+
+    /**
+     * Records a sent email. It is not retried if this fails, since the email already went out.
+     */
+    public void markSent(Claim claim) {
+        if (claim.key() == null) {
+            return;
+        }
+        recentlySent.put(claim.key(), Boolean.TRUE);
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (!notificationDeliveryRepositoryImpl.markSent(claim.key(), claim.claimedBy(), now, now.plusDays(retentionDays))) {
+                log.warn("The delivery claim on {} expired before the email was recorded as sent; it may go out twice.", claim.key());
+            }
+        } catch (Exception e) {
+            log.warn("Could not record the delivery of {}: {}", claim.key(), e.getMessage());
+        }
+    }
+
+    /**
+     * Gives up a claim after a failed email, so that its retry is not taken for a duplicate.
+     */
+    public void release(Claim claim) {
+        if (claim.key() == null) {
+            return;
+        }
+        try {
+            notificationDeliveryRepositoryImpl.release(claim.key(), claim.claimedBy());
+        } catch (Exception e) {
+            // The claim then simply expires after 'claim-seconds'.
+            log.warn("Could not release the delivery claim on {}: {}", claim.key(), e.getMessage());
+        }
+    }
+
+    public void countDropped(long duplicates) {
+        duplicatesDropped.addAndGet(duplicates);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("duplicatesDropped", duplicatesDropped.get());
+        stats.put("recentlySentCached", recentlySent.estimatedSize());
+        return stats;
+    }
+}
@@ -0,0 +1,183 @@
+package net.manifest.journalapp.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.entity.NotificationOutbox;
+import net.manifest.journalapp.model.SentimentData;
+import net.manifest.journalapp.repository.NotificationOutboxRepositoryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the notification events of the outbox (notification_outbox) to Kafka.
+ * <p>
+ * Every node runs the relay on its own thread, so that a large outbox does not hold up the
+ * scheduled tasks: each pass claims a batch of due events, sends them without waiting in between,
+ * and then records which ones Kafka acknowledged. A failed event is retried later with
+ * exponential backoff, and marked FAILED after 'max-attempts'. Sent events are removed by a TTL
+ * index after 'retention-days'.
+ */
+@Slf4j
+@Service
+public class NotificationOutboxRelay {
+
+    @Autowired
+    private NotificationOutboxRepositoryImpl notificationOutboxRepositoryImpl;
+
+    @Autowired
+    private KafkaTemplate<String, SentimentData> kafkaTemplate;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Value("${notifications.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notifications.outbox.relay-interval-ms:1000}")
+    private long relayIntervalMs;
+
+    // Batches relayed per run at most, so that one run stays short and the others get their turn.
+    @Value("${notifications.outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    // How long a claimed batch is reserved for this relay; it must cover sending the whole batch.
+    @Value("${notifications.outbox.claim-seconds:120}")
+    private long claimSeconds;
+
+    @Value("${notifications.outbox.initial-backoff-ms:5000}")
+    private long initialBackoffMs;
+
+    @Value("${notifications.outbox.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    @Value("${notifications.outbox.max-attempts:20}")
+    private int maxAttempts;
+
+    @Value("${notifications.outbox.retention-days:30}")
+    private long retentionDays;
+
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private ScheduledExecutorService relayThread;
+
+    @PostConstruct
+    public void init() {
+        relayThread = Executors.newSingleThreadScheduledExecutor(
+                runnable -> new Thread(runnable, "notification-outbox-relay"));
+        relayThread.scheduleWithFixedDelay(this::relay, relayIntervalMs, relayIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayThread.shutdownNow();
+    }
+
+    /**
+     * Relays due events until a batch comes back short or 'max-batches-per-run' batches were
+     * relayed; a larger outbox is drained over the following runs.
+     */
+    public void relay() {
+        try {
+            int claimed;
+            int batches = 0;
+            do {
+                claimed = relayBatch();
+                batches++;
+            } while (claimed == batchSize && batches < maxBatchesPerRun && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            log.warn("Notification outbox relay failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pending", notificationOutboxRepositoryImpl.countByStatus(NotificationOutbox.PENDING));
+        status.put("sent", notificationOutboxRepositoryImpl.countByStatus(NotificationOutbox.SENT));
+        status.put("failed", notificationOutboxRepositoryImpl.countByStatus(NotificationOutbox.FAILED));
+        status.put("relayedByThisNode", relayed.get());
+        status.put("sendFailuresOnThisNode", failed.get());
+        return status;
+    }
+
+    private int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        String claimToken = jobLeaseService.getNodeId() + ":" + UUID.randomUUID();
+        List<NotificationOutbox> events = notificationOutboxRepositoryImpl.claimDue(
+                claimToken, now, now.plusSeconds(claimSeconds), batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, SentimentData>>> sends = new ArrayList<>(events.size());
+        for (NotificationOutbox event : events) {
+            CompletableFuture<SendResult<String, SentimentData>> send;
+            try {
+                send = kafkaTemplate.send(event.getTopic(), event.getPayload().getEmail(), event.getPayload());
+            } catch (Exception e) {
+                send = CompletableFuture.failedFuture(e);
+            }
+            sends.add(send);
+        }
+
+        List<String> sent = new ArrayList<>();
+        Map<String, Update> failures = new LinkedHashMap<>();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(claimSeconds);
+        for (int i = 0; i < events.size(); i++) {
+            NotificationOutbox event = events.get(i);
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                sent.add(event.getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(event.getId(), retryLater(event, "interrupted", now));
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                failures.put(event.getId(), retryLater(event, cause.getMessage(), now));
+            }
+        }
+        LocalDateTime done = LocalDateTime.now();
+        notificationOutboxRepositoryImpl.complete(sent, failures, done, done.plusDays(retentionDays));
+
+        relayed.addAndGet(sent.size());
+        failed.addAndGet(failures.size());
+        if (!failures.isEmpty()) {
+            log.warn("Relayed {} notification events; {} failed and will be retried.", sent.size(), failures.size());
+        }
+        return events.size();
+    }
+
+    // initial * 2^(attempts - 1), capped at max-backoff-ms; FAILED once max-attempts is reached.
+    private Update retryLater(NotificationOutbox event, String error, LocalDateTime now) {
+        int attempts = event.getAttempts() + 1;
+        Update update = new Update()
+                .set("attempts", attempts)
+                .set("lastError", error)
+                .unset("claimedBy")
+                .unset("claimedUntil");
+        if (attempts >= maxAttempts) {
+            log.error("Giving up on the notification event {} after {} attempts: {}", event.getId(), attempts, error);
+            return update.set("status", NotificationOutbox.FAILED)
+                    .set("expiresAt", now.plusDays(retentionDays));
+        }
+        long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 30));
+        return update.set("nextAttemptAt", now.plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs)));
+    }
+}
@@ -1,13 +1,15 @@
 package net.manifest.journalapp.services;
 
 import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.cache.SentimentLexiconCache;
 import net.manifest.journalapp.entity.JournalEntry;
 import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.utils.sentiment.SentimentLexicon;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * A dedicated service for performing rule-based sentiment analysis.
@@ -18,7 +20,7 @@ import java.util.stream.Collectors;
 @Service
 public class SentimentAnalysisService {
     //Comprehensive list of positive keywords you provided.
-    private static final List<String> POSITIVE_KEYWORDS = Arrays.asList(
+    public static final List<String> POSITIVE_KEYWORDS = List.of(
             // Emotions & Feelings
             "happy", "joy", "joyful", "wonderful", "amazing", "awesome", "great", "fantastic",
             "success", "grateful", "love", "proud", "beautiful", "celebrate", "achieved",
@@ -47,7 +49,7 @@ public class SentimentAnalysisService {
     );
 
     // Comprehensive list of negative keywords you provided.
-    private static final List<String> NEGATIVE_KEYWORDS = Arrays.asList(
+    public static final List<String> NEGATIVE_KEYWORDS = List.of(
             // Emotions & Feelings
             "sad", "angry", "terrible", "horrible", "awful", "bad", "upset", "disappointed",
             "failure", "hate", "anxious", "worried", "stressed", "stressful", "tired",
@@ -71,13 +73,54 @@ public class SentimentAnalysisService {
     );
 
     /**
-     * Analyzes a JournalEntry and returns a calculated Sentiment enum.
+     * Supplies the compiled lexicon. The lists above are only its built-in default and the seed
+     * of the versioned lexicon in MongoDB; the published version is what entries are scored with.
+     */
+    @Autowired
+    private SentimentLexiconCache sentimentLexiconCache;
+
+    /**
+     * By default each keyword counts once however often it occurs, which keeps scores identical
+     * to the original implementation. When enabled, every occurrence counts.
+     */
+    @Value("${sentiment.count-occurrences:false}")
+    private boolean countOccurrences;
+
+    /**
+     * @return The lexicon currently in use.
+     */
+    public SentimentLexicon lexicon() {
+        return sentimentLexiconCache.current();
+    }
+
+    /**
+     * Analyzes a JournalEntry with the current lexicon and records the lexicon's version on the
+     * entry ('lexiconVersion'), so that re-scoring can later find entries scored with an older one.
      * @param entry The JournalEntry to analyze (must contain mood and content).
-     * @return The determined Sentiment (e.g., POSITIVE, NEGATIVE, NEUTRAL).
+     * @return The determined Sentiment.
      */
+    public Sentiment score(JournalEntry entry) {
+        SentimentLexicon lexicon = lexicon();
+        entry.setLexiconVersion(lexicon.getVersion());
+        return analyze(entry, lexicon);
+    }
 
+    /**
+     * Analyzes a JournalEntry with the current lexicon and returns a calculated Sentiment enum.
+     * @param entry The JournalEntry to analyze (must contain mood and content).
+     * @return The determined Sentiment (e.g., POSITIVE, NEGATIVE, NEUTRAL).
+     */
+    public Sentiment analyze(JournalEntry entry) {
+        return analyze(entry, lexicon());
+    }
 
-    public Sentiment analyze(JournalEntry entry){
+    /**
+     * Analyzes a JournalEntry with the given lexicon and returns a calculated Sentiment enum.
+     * @param entry The JournalEntry to analyze (must contain mood and content).
+     * @param lexicon The keyword lexicon to score the content with.
+     * @return The determined Sentiment (e.g., POSITIVE, NEGATIVE, NEUTRAL).
+     */
+    public Sentiment analyze(JournalEntry entry, SentimentLexicon lexicon){
 
         if(entry.getMood() == null && (entry.getContent() == null || entry.getContent().isBlank() )){
               return  Sentiment.NEUTRAL;
@@ -93,22 +136,8 @@ public class SentimentAnalysisService {
         }
 
         // --- Step 2: Calculate the Keyword Score (Low Weight) ---
-        int keywordScore =0;
-        if(entry.getContent() != null && !entry.getContent().isBlank()){
-            List<String> tokens = Arrays.stream(entry.getContent().toLowerCase().split("\\W+"))
-                    .collect(Collectors.toList());
-
-            for(String word :POSITIVE_KEYWORDS){
-                 if(tokens.contains(word)){
-                      keywordScore++;
-                 }
-            }
-            for(String word : NEGATIVE_KEYWORDS){
-                 if(tokens.contains(word)){
-                     keywordScore--;
-                 }
-            }
-        }
+        // A single pass over the content with hashed keyword lookups.
+        int keywordScore = lexicon.score(entry.getContent(), countOccurrences);
 
         // --- Step 3: Combine Scores and Determine Final Sentiment ---
         int finalScore = (moodScore * 4) + keywordScore;
@@ -0,0 +1,153 @@
+package net.manifest.journalapp.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.enums.Sentiment;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Scores journal entries in the background when 'sentiment.async.enabled' is set.
+ * <p>
+ * Writes only mark an entry as pending ('sentimentRequestedAt') and enqueue its id. The worker
+ * drains the queue in batches, scores the entries and writes the results back in one unordered
+ * bulk update. Each update is conditional on the 'sentimentRequestedAt' it read, so a result is
+ * dropped if the entry was edited again in the meantime (the newer request wins).
+ * <p>
+ * The queue lives in memory; ids lost to a restart or a full queue are picked up again by a
+ * periodic sweep of pending entries.
+ */
+@Slf4j
+@Service
+public class SentimentAnalysisWorker {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SentimentAnalysisService sentimentAnalysisService;
+
+    @Autowired
+    private JournalRollupService journalRollupService;
+
+    @Value("${sentiment.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sentiment.async.batch-size:200}")
+    private int batchSize;
+
+    @Value("${sentiment.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // Entries pending for longer than this are assumed to have lost their queued id.
+    @Value("${sentiment.async.stale-after-ms:60000}")
+    private long staleAfterMs;
+
+    private BlockingQueue<ObjectId> queue;
+
+    @PostConstruct
+    public void init() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues an entry whose sentiment was marked pending. Never blocks the caller.
+     */
+    public void enqueue(ObjectId journalId) {
+        if (!queue.offer(journalId)) {
+            log.warn("Sentiment queue is full; entry {} will be scored by the next sweep.", journalId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sentiment.async.batch-interval-ms:500}")
+    public void processQueued() {
+        List<ObjectId> ids = new ArrayList<>(batchSize);
+        while (queue.drainTo(ids, batchSize) > 0) {
+            scoreIds(ids);
+            ids.clear();
+        }
+    }
+
+    /**
+     * Scores entries that are still pending after 'stale-after-ms'. This also runs when async
+     * mode is switched off, so that no entry is left without a sentiment.
+     */
+    @Scheduled(fixedDelayString = "${sentiment.async.sweep-interval-ms:60000}")
+    public void sweepPending() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMs));
+        int scored;
+        do {
+            Query query = pendingQuery(Criteria.where("sentimentRequestedAt").lt(staleBefore)).limit(batchSize);
+            List<JournalEntry> entries = mongoTemplate.find(query, JournalEntry.class);
+            scored = score(entries);
+        } while (scored == batchSize);
+    }
+
+    private void scoreIds(Collection<ObjectId> ids) {
+        Query query = pendingQuery(Criteria.where("_id").in(ids)
+                .and("sentimentRequestedAt").ne(null));
+        score(mongoTemplate.find(query, JournalEntry.class));
+    }
+
+    // Only the inputs of the analysis, the request marker and what the rollups need are read.
+    private static Query pendingQuery(Criteria criteria) {
+        Query query = new Query(criteria);
+        query.fields().include("content", "mood", "sentimentRequestedAt", "sentiment", "userId", "createdAt");
+        return query;
+    }
+
+    /**
+     * @return The number of entries scored, or 0 if the batch failed (it stays pending for the sweep).
+     */
+    private int score(List<JournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JournalEntry.class);
+            ObjectId writeId = new ObjectId();
+            Map<ObjectId, Sentiment> scored = new HashMap<>();
+            for (JournalEntry entry : entries) {
+                Sentiment sentiment = sentimentAnalysisService.score(entry);
+                scored.put(entry.getId(), sentiment);
+                bulk.updateOne(
+                        new Query(Criteria.where("_id").is(entry.getId())
+                                .and("sentimentRequestedAt").is(entry.getSentimentRequestedAt())),
+                        new Update().set("sentiment", sentiment)
+                                .set("lexiconVersion", entry.getLexiconVersion())
+                                .set(JournalRollupService.SENTIMENT_WRITE_FIELD, writeId)
+                                .unset("sentimentRequestedAt"));
+            }
+            int updated = bulk.execute().getModifiedCount();
+            journalRollupService.sentimentsWritten(entries, scored, writeId);
+            log.debug("Scored sentiment of {} journal entries ({} written).", entries.size(), updated);
+            return entries.size();
+        } catch (Exception e) {
+            log.error("Failed to score a batch of {} journal entries.", entries.size(), e);
+            return 0;
+        }
+    }
+}
@@ -1,37 +1,194 @@
 package net.manifest.journalapp.services;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import net.manifest.journalapp.model.SentimentData;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the weekly sentiment emails produced to Kafka.
+ * <p>
+ * A record whose email fails is moved to the "weekly-sentiments-failed" topic instead of being
+ * redelivered in place, so one bad SMTP window cannot stall the partitions. That topic is retried
+ * through a chain of delay topics with exponential backoff, and what still fails ends in
+ * "weekly-sentiments-failed-dlt", from where an admin can replay it (SentimentDltReplayService).
+ */
 @Slf4j
 @Service
 public class SentimentConsumerService {
 
+      public static final String FAILED_TOPIC = SentimentNotificationProducer.TOPIC + "-failed";
+      public static final String DLT_TOPIC = FAILED_TOPIC + "-dlt";
+
       @Autowired
       private SentimentNotificationService sentimentNotificationService;
 
+      @Autowired
+      private NotificationDeliveryLedger notificationDeliveryLedger;
+
+      @Autowired
+      private KafkaTemplate<String, SentimentData> kafkaTemplate;
+
+      // How long moving a failed record to the retry topic may take before the batch is redelivered.
+      @Value("${notifications.retry.forward-timeout-ms:30000}")
+      private long forwardTimeoutMs;
+
+      // Emails sent at the same time by each node, over all of its consumers.
+      @Value("${notifications.consumer.email-threads:8}")
+      private int emailThreads;
+
+      private ExecutorService emailPool;
+
+      @PostConstruct
+      public void init() {
+          AtomicInteger threadNumber = new AtomicInteger();
+          emailPool = Executors.newFixedThreadPool(emailThreads,
+                  runnable -> new Thread(runnable, "sentiment-email-" + threadNumber.incrementAndGet()));
+      }
+
+      @PreDestroy
+      public void shutdown() {
+          emailPool.shutdownNow();
+      }
+
     /**
-     * Consumes messages from the "weekly-sentiments" Kafka topic.
-     * This method is triggered automatically whenever a new message is produced
-     * by the MyScheduler.
+     * Consumes batches of messages from the "weekly-sentiments" Kafka topic, produced by the
+     * weekly notification job, and sends the emails of a batch in parallel.
+     * <p>
+     * Records with the same key (the email address) are sent one after another in offset order;
+     * different keys go out concurrently. The listener returns once the whole batch is handled,
+     * and only then are the batch's offsets committed. Reports the delivery ledger already knows as
+     * sent (e.g. a redelivered batch) are dropped before any SMTP work.
      *
-     * @param sentimentData The deserialized message from Kafka, containing all the
+     * @param records The deserialized messages of one poll, containing all the
      * insights needed to send a personalized email.
      */
+      @KafkaListener(topics = SentimentNotificationProducer.TOPIC, groupId = "weekly-sentiment-group",
+              containerFactory = "sentimentBatchListenerContainerFactory")
+      public void consume(List<ConsumerRecord<String, SentimentData>> records) throws InterruptedException {
+          Set<String> alreadySent = notificationDeliveryLedger.alreadySent(records.stream()
+                  .map(ConsumerRecord::value)
+                  .filter(Objects::nonNull)
+                  .toList());
+          // The indexes in the batch of the records to send, per recipient.
+          Map<String, List<Integer>> byKey = new LinkedHashMap<>();
+          int duplicates = 0;
+          for (int index = 0; index < records.size(); index++) {
+              ConsumerRecord<String, SentimentData> record = records.get(index);
+              if (record.value() == null) {
+                  continue;
+              }
+              String deliveryKey = NotificationDeliveryLedger.keyOf(record.value());
+              if (deliveryKey != null && alreadySent.contains(deliveryKey)) {
+                  duplicates++;
+                  continue;
+              }
+              byKey.computeIfAbsent(String.valueOf(record.key()), key -> new ArrayList<>()).add(index);
+          }
+          notificationDeliveryLedger.countDropped(duplicates);
+          log.info("Consumed {} sentiment records for {} recipients ({} already sent).", records.size(), byKey.size(), duplicates);
+
+          List<Future<?>> sends = new ArrayList<>(byKey.size());
+          for (List<Integer> sameKey : byKey.values()) {
+              sends.add(emailPool.submit(() -> sameKey.forEach(index -> send(records.get(index).value(), index))));
+          }
+          BatchListenerFailedException firstFailure = null;
+          for (Future<?> send : sends) {
+              try {
+                  send.get();
+              } catch (ExecutionException e) {
+                  if (!(e.getCause() instanceof BatchListenerFailedException failure)) {
+                      throw new IllegalStateException("Could not send sentiment emails.", e.getCause());
+                  }
+                  if (firstFailure == null || failure.getIndex() < firstFailure.getIndex()) {
+                      firstFailure = failure;
+                  }
+              }
+              // An interruption (shutdown) propagates, so the batch is not committed and is redelivered.
+          }
+          if (firstFailure != null) {
+              // A failed email that could not be moved to the retry topic either. The records before it are
+              // committed and the container's error handler redelivers the rest with backoff, finally
+              // parking it on the dead-letter topic; those already sent are dropped by the ledger then.
+              throw firstFailure;
+          }
+      }
+
+    /**
+     * Retries the emails that failed in the batch listener. Each attempt that throws moves the record
+     * to the next delay topic (1 min, 3 min, 9 min... by default) without blocking the records behind
+     * it; after the last attempt it goes to the dead-letter topic.
+     */
+      @RetryableTopic(
+              attempts = "${notifications.retry.attempts:5}",
+              backoff = @Backoff(
+                      delayExpression = "${notifications.retry.initial-delay-ms:60000}",
+                      multiplierExpression = "${notifications.retry.multiplier:3.0}",
+                      maxDelayExpression = "${notifications.retry.max-delay-ms:3600000}"),
+              numPartitions = "${notifications.topic.partitions:6}",
+              topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE)
+      @KafkaListener(topics = FAILED_TOPIC, groupId = "weekly-sentiment-retry-group",
+              containerFactory = "kafkaListenerContainerFactory")
+      public void retry(SentimentData sentimentData) {
+          sentimentNotificationService.deliverSentimentReport(sentimentData);
+      }
 
-      @KafkaListener(topics="weekly-sentiments",groupId = "weekly-sentiment-group")
-      public void consume(SentimentData sentimentData){
-          log.info("Consumed sentiment data for email: {}", sentimentData.getEmail());
+      @DltHandler
+      public void deadLetter(SentimentData sentimentData, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+          log.error("Giving up on the sentiment email to {} after all retries; it is kept in {} for replay.",
+                  sentimentData.getEmail(), topic);
+      }
+
+      private void send(SentimentData sentimentData, int index) {
           try {
               // Delegate the actual work of sending the email to the notification service.
               // This keeps the consumer's responsibility clean and focused.
-              sentimentNotificationService.sendSentimentReport(sentimentData); // Simplified call
-              log.info("Successfully sent sentiment report to: {}", sentimentData.getEmail());
+              sentimentNotificationService.deliverSentimentReport(sentimentData);
+          } catch (Exception e) {
+              log.warn("Failed to send sentiment email to: {}. Retrying later. Error: {}", sentimentData.getEmail(), e.getMessage());
+              try {
+                  forwardForRetry(sentimentData);
+              } catch (IllegalStateException forwardFailure) {
+                  throw new BatchListenerFailedException(forwardFailure.getMessage(), forwardFailure.getCause(), index);
+              }
+          }
+      }
+
+      private void forwardForRetry(SentimentData sentimentData) {
+          try {
+              kafkaTemplate.send(FAILED_TOPIC, sentimentData.getEmail(), sentimentData)
+                      .get(forwardTimeoutMs, TimeUnit.MILLISECONDS);
+          } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new IllegalStateException("Interrupted while moving the email to " + sentimentData.getEmail() + " to the retry topic.", e);
           } catch (Exception e) {
-              log.error("Failed to send sentiment email to: {}. Error: {}", sentimentData.getEmail(), e.getMessage());
+              throw new IllegalStateException("Could not move the email to " + sentimentData.getEmail() + " to the retry topic.", e);
           }
       }
 }
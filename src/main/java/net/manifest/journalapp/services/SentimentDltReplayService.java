@@ -0,0 +1,112 @@
+package net.manifest.journalapp.services;
+
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.model.SentimentData;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the sentiment emails that ended in the dead-letter topic after all retries, by
+ * producing them to the retry topic again (typically after an SMTP outage is fixed).
+ * <p>
+ * The records present when the replay starts are read with a dedicated consumer group whose
+ * committed offsets mark what was replayed, so running it twice does not send anything twice.
+ */
+@Slf4j
+@Service
+public class SentimentDltReplayService {
+
+    private static final String REPLAY_GROUP = "weekly-sentiment-dlt-replay";
+
+    @Autowired
+    private ConsumerFactory<String, Object> consumerFactory;
+
+    @Autowired
+    private KafkaTemplate<String, SentimentData> kafkaTemplate;
+
+    @Value("${notifications.retry.forward-timeout-ms:30000}")
+    private long forwardTimeoutMs;
+
+    /**
+     * @return The number of records replayed and skipped (not a SentimentData), and the topics involved.
+     */
+    public synchronized Map<String, Object> replay() throws Exception {
+        long replayed = 0;
+        long skipped = 0;
+        try (Consumer<String, Object> consumer = consumerFactory.createConsumer(REPLAY_GROUP, "-replay")) {
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(SentimentConsumerService.DLT_TOPIC);
+            List<TopicPartition> partitions = partitionInfos == null ? List.of() : partitionInfos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            if (!partitions.isEmpty()) {
+                consumer.assign(partitions);
+                Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+                for (TopicPartition partition : partitions) {
+                    OffsetAndMetadata offset = committed.get(partition);
+                    if (offset == null) {
+                        consumer.seekToBeginning(List.of(partition));
+                    } else {
+                        consumer.seek(partition, offset.offset());
+                    }
+                }
+                // Only what is there now; records arriving during the replay wait for the next one.
+                Map<TopicPartition, Long> endOffsets = new HashMap<>(consumer.endOffsets(partitions));
+
+                while (!caughtUp(consumer, endOffsets)) {
+                    Map<TopicPartition, OffsetAndMetadata> done = new LinkedHashMap<>();
+                    for (ConsumerRecord<String, Object> record : consumer.poll(Duration.ofSeconds(1))) {
+                        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                        if (record.offset() >= endOffsets.get(partition)) {
+                            continue;
+                        }
+                        if (record.value() instanceof SentimentData sentimentData) {
+                            kafkaTemplate.send(SentimentConsumerService.FAILED_TOPIC, record.key(), sentimentData)
+                                    .get(forwardTimeoutMs, TimeUnit.MILLISECONDS);
+                            replayed++;
+                        } else {
+                            log.warn("Skipping dead-letter record {}-{}@{}: not a sentiment report.",
+                                    record.topic(), record.partition(), record.offset());
+                            skipped++;
+                        }
+                        done.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                    }
+                    if (!done.isEmpty()) {
+                        consumer.commitSync(done);
+                    }
+                }
+            }
+        }
+        log.info("Replayed {} dead-letter sentiment emails to {} ({} skipped).", replayed, SentimentConsumerService.FAILED_TOPIC, skipped);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", SentimentConsumerService.DLT_TOPIC);
+        result.put("to", SentimentConsumerService.FAILED_TOPIC);
+        result.put("replayed", replayed);
+        result.put("skipped", skipped);
+        return result;
+    }
+
+    private static boolean caughtUp(Consumer<String, Object> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
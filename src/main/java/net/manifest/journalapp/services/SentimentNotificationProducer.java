@@ -0,0 +1,174 @@
+package net.manifest.journalapp.services;
+
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.entity.NotificationOutbox;
+import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.entity.WeeklySummary;
+import net.manifest.journalapp.model.SentimentData;
+import net.manifest.journalapp.repository.NotificationOutboxRepositoryImpl;
+import net.manifest.journalapp.repository.WeeklySummaryRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Produces the weekly sentiment notifications, in batches, into the outbox (notification_outbox),
+ * from where NotificationOutboxRelay publishes them to Kafka.
+ * <p>
+ * Each caller (e.g. a job partition) buffers its users in a Batch of its own; each full buffer
+ * reads its weekly summaries in one query and writes one event per user with a single bulk. Events
+ * are keyed on (user, ISO week), so re-running the job for the same week adds nothing. The job never
+ * talks to Kafka or SMTP, so their health does not affect it.
+ */
+@Slf4j
+@Service
+public class SentimentNotificationProducer {
+
+    public static final String TOPIC = "weekly-sentiments";
+
+    @Autowired
+    private WeeklySummaryRepository weeklySummaryRepository;
+
+    @Autowired
+    private NotificationOutboxRepositoryImpl notificationOutboxRepositoryImpl;
+
+    @Value("${notifications.producer.batch-size:500}")
+    private int batchSize;
+
+    private final AtomicLong queued = new AtomicLong();
+
+    /**
+     * @return A new, empty buffer of users to notify, for use by one thread.
+     */
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    /**
+     * @return The events added to the outbox since startup (duplicates of existing ones not counted).
+     */
+    public long getQueued() {
+        return queued.get();
+    }
+
+    private record Pending(User user, String isoWeek) {
+    }
+
+    /**
+     * The users of one caller whose events are not written yet, and its failures not yet reported.
+     */
+    public class Batch {
+
+        private final List<Pending> buffer = new ArrayList<>();
+
+        private long unreportedFailures;
+
+        private Batch() {
+        }
+
+        /**
+         * Buffers a user to notify about the given week, writing the buffer once it is full.
+         */
+        public void add(User user, String isoWeek) {
+            buffer.add(new Pending(user, isoWeek));
+            if (buffer.size() >= batchSize) {
+                writeBuffer();
+            }
+        }
+
+        /**
+         * Writes the buffered users' events to the outbox.
+         * @return The users of this batch whose events could not be written since the previous flush,
+         * including those written when the buffer was full.
+         */
+        public long flush() {
+            writeBuffer();
+            long failures = unreportedFailures;
+            unreportedFailures = 0;
+            return failures;
+        }
+
+        private void writeBuffer() {
+            if (!buffer.isEmpty()) {
+                unreportedFailures += write(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    // @return The number of users whose events could not be written.
+    private int write(List<Pending> batch) {
+        List<NotificationOutbox> events;
+        try {
+            events = toEvents(batch);
+        } catch (RuntimeException e) {
+            log.error("Could not read the weekly summaries of {} users to notify: {}", batch.size(), e.getMessage());
+            return batch.size();
+        }
+        try {
+            int added = notificationOutboxRepositoryImpl.addAll(events);
+            queued.addAndGet(added);
+            if (added < events.size()) {
+                log.info("{} of {} notification events were already in the outbox for their week.", events.size() - added, events.size());
+            }
+            return 0;
+        } catch (BulkOperationException e) {
+            // Unordered: every upsert was attempted, and each error names the event it belongs to.
+            e.getErrors().forEach(error -> log.error("Could not queue the notification {}: {}",
+                    events.get(error.getIndex()).getId(), error.getMessage()));
+            queued.addAndGet(e.getResult().getUpserts().size());
+            return e.getErrors().size();
+        } catch (RuntimeException e) {
+            // The bulk was not sent at all (e.g. no connection), so none of its events were written.
+            log.error("Could not queue {} notification events: {}", events.size(), e.getMessage());
+            return events.size();
+        }
+    }
+
+    private List<NotificationOutbox> toEvents(List<Pending> batch) {
+        Map<ObjectId, WeeklySummary> summaries = weeklySummaryRepository
+                .findByUserIdIn(batch.stream().map(pending -> pending.user().getId()).toList())
+                .stream()
+                .collect(Collectors.toMap(WeeklySummary::getUserId, Function.identity(), (first, second) -> first));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> events = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            User user = pending.user();
+            WeeklySummary summary = summaries.get(user.getId());
+            if (summary == null) {
+                continue;
+            }
+            SentimentData sentimentData = SentimentData.builder()
+                    .userId(user.getId().toHexString())
+                    .isoWeek(pending.isoWeek())
+                    .email(user.getEmail())
+                    .userName(user.getUsername())
+                    .dominantMood(summary.getDominantMood())
+                    .dominantSentiment(summary.getDominantSentiment())
+                    .averageMoodScore(summary.getAverageMoodScore())
+                    .entryCount(summary.getEntryCount())
+                    .build();
+
+            NotificationOutbox event = new NotificationOutbox();
+            event.setId(NotificationOutbox.idOf(user.getId(), pending.isoWeek()));
+            event.setUserId(user.getId());
+            event.setIsoWeek(pending.isoWeek());
+            event.setTopic(TOPIC);
+            event.setPayload(sentimentData);
+            event.setCreatedAt(now);
+            events.add(event);
+        }
+        return events;
+    }
+}
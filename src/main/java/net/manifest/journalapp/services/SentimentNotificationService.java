@@ -16,30 +16,47 @@ public class SentimentNotificationService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private NotificationDeliveryLedger notificationDeliveryLedger;
+
     /**
-     * The main method called by the Kafka consumer. It orchestrates the creation
-     * and sending of the weekly sentiment report email.
+     * The main method called by the Kafka consumers. It orchestrates the creation
+     * and sending of the weekly sentiment report email, and throws if the email was not sent
+     * so that the message can be retried.
+     * <p>
+     * The email is claimed in the delivery ledger first, so a user gets at most one report per week
+     * however often the message is delivered.
      *
      * @param data The rich SentimentData object consumed from Kafka.
+     * @return false if the report was already sent (or is being sent) and was dropped.
+     * @throws org.springframework.mail.MailException if the email could not be sent.
      */
-    public void sendSentimentReport(SentimentData data) {
-        try {
-            // 1. Create a personalized, intelligent email body based on the user's data.
-            String subject = "Your Weekly Journal Reflection is Here!";
-            String body = createPersonalizedBody(data);
+    public boolean deliverSentimentReport(SentimentData data) {
+        NotificationDeliveryLedger.Claim claim = notificationDeliveryLedger.claim(data);
+        if (claim == null) {
+            log.info("Skipping the sentiment report of {} for {}: already sent.", data.getEmail(), data.getIsoWeek());
+            return false;
+        }
+
+        // 1. Create a personalized, intelligent email body based on the user's data.
+        String subject = "Your Weekly Journal Reflection is Here!";
+        String body = createPersonalizedBody(data);
 
-            // 2. Send the email using the generic EmailService.
-            emailService.sendEmail(
+        // 2. Send the email using the generic EmailService, waiting for the outcome.
+        try {
+            emailService.sendEmailNow(
                     data.getEmail(),
                     subject,
                     body,
                     "JournalApp"
             );
-            log.info("Successfully sent sentiment report to: {}", data.getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send sentiment email to: {}. Error: {}", data.getEmail(), e.getMessage());
-            // It's important to handle potential errors from the email sending service.
+        } catch (RuntimeException e) {
+            notificationDeliveryLedger.release(claim);
+            throw e;
         }
+        notificationDeliveryLedger.markSent(claim);
+        log.info("Successfully sent sentiment report to: {}", data.getEmail());
+        return true;
     }
 
     /**
@@ -0,0 +1,346 @@
+package net.manifest.journalapp.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.entity.JobCheckpoint;
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.repository.JobCheckpointRepository;
+import net.manifest.journalapp.repository.JobCheckpointRepositoryImpl;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Recomputes the sentiment of every journal entry scored with an older lexicon version than the
+ * one in use, e.g. after a new version of the keyword lexicon was published.
+ * <p>
+ * The stale entries are streamed with a MongoDB cursor in _id order (only the analyzer's inputs
+ * are read) and cut into batches. The batches are scored in parallel and each is written back
+ * with one unordered bulk update that stamps the new sentiment and lexicon version.
+ * <p>
+ * Progress is checkpointed in 'job_checkpoints' as the highest _id below which every batch has
+ * been written, so a cancelled or interrupted run resumes from there. The checkpoint is claimed by
+ * the node running the job, so with several replicas only one of them runs or resumes it.
+ */
+@Slf4j
+@Service
+public class SentimentRescoreJob {
+
+    public static final String JOB_NAME = "sentiment-rescore";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SentimentAnalysisService sentimentAnalysisService;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private JobCheckpointRepositoryImpl jobCheckpointRepositoryImpl;
+
+    @Autowired
+    private JournalRollupService journalRollupService;
+
+    @Value("${sentiment.rescore.batch-size:500}")
+    private int batchSize;
+
+    @Value("${sentiment.rescore.threads:0}")
+    private int threads;
+
+    // Resume a run that was interrupted by a shutdown when the application starts again.
+    @Value("${sentiment.rescore.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    // How long the checkpoint stays claimed by this node without a progress save; a node that dies
+    // leaves the job to the others once it has passed.
+    @Value("${sentiment.rescore.claim-seconds:300}")
+    private long claimSeconds;
+
+    // Identifies this process as the checkpoint's owner.
+    private final String owner = UUID.randomUUID().toString();
+
+    private ExecutorService coordinator;
+    private ExecutorService scoringPool;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean cancelRequested;
+    private volatile boolean shuttingDown;
+    private volatile boolean claimLost;
+    private volatile long runStartedNanos;
+    private final AtomicLong processedThisRun = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        threads = poolSize;
+        coordinator = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, JOB_NAME));
+        scoringPool = Executors.newFixedThreadPool(poolSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        coordinator.shutdownNow();
+        scoringPool.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        jobCheckpointRepository.findById(JOB_NAME)
+                .filter(checkpoint -> JobCheckpoint.RUNNING.equals(checkpoint.getStatus()))
+                .ifPresent(checkpoint -> {
+                    try {
+                        start(false);
+                        log.info("Resuming interrupted sentiment rescore after {}", checkpoint.getLastProcessedId());
+                    } catch (IllegalStateException e) {
+                        log.info("Not resuming the sentiment rescore: {}", e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Starts the job in the background.
+     * @param restart If true, starts over from the first entry; otherwise resumes from the last
+     *                checkpoint unless the previous run completed.
+     * @return The job status.
+     * @throws IllegalStateException if the job is already running, on this node or another one.
+     */
+    public Map<String, Object> start(boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("The sentiment rescore job is already running.");
+        }
+        JobCheckpoint saved;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (!jobCheckpointRepositoryImpl.claim(JOB_NAME, owner, now, now.plusSeconds(claimSeconds))) {
+                throw new IllegalStateException("The sentiment rescore job is already running on another node.");
+            }
+            int targetVersion = sentimentAnalysisService.lexicon().getVersion();
+            JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME).orElseThrow();
+            // A checkpoint without a status was only just created by the claim. A run for an older
+            // lexicon cannot be resumed: entries before its checkpoint are stale again.
+            if (restart || checkpoint.getStatus() == null || JobCheckpoint.COMPLETED.equals(checkpoint.getStatus())
+                    || !Objects.equals(checkpoint.getLexiconVersion(), targetVersion)) {
+                checkpoint = new JobCheckpoint();
+                checkpoint.setJobName(JOB_NAME);
+                checkpoint.setOwner(owner);
+                checkpoint.setLexiconVersion(targetVersion);
+                checkpoint.setStartedAt(now);
+            }
+            checkpoint.setStatus(JobCheckpoint.RUNNING);
+            checkpoint.setFinishedAt(null);
+            checkpoint.setUpdatedAt(now);
+            checkpoint.setClaimedUntil(now.plusSeconds(claimSeconds));
+            if (!jobCheckpointRepositoryImpl.saveOwned(checkpoint)) {
+                throw new IllegalStateException("The sentiment rescore job is already running on another node.");
+            }
+            saved = checkpoint;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+
+        cancelRequested = false;
+        claimLost = false;
+        processedThisRun.set(0);
+        runStartedNanos = System.nanoTime();
+        coordinator.submit(() -> run(saved));
+        return status();
+    }
+
+    /**
+     * Asks a running job to stop after the batches in flight; it can be resumed later.
+     * @return true if a running job was asked to stop.
+     */
+    public boolean cancel() {
+        if (!running.get()) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME).orElse(null);
+        status.put("running", running.get());
+        if (checkpoint != null) {
+            status.put("status", checkpoint.getStatus());
+            status.put("processed", checkpoint.getProcessed());
+            status.put("updated", checkpoint.getUpdated());
+            status.put("lexiconVersion", checkpoint.getLexiconVersion());
+            status.put("lastProcessedId", checkpoint.getLastProcessedId() != null ? checkpoint.getLastProcessedId().toHexString() : null);
+            status.put("startedAt", checkpoint.getStartedAt());
+            status.put("finishedAt", checkpoint.getFinishedAt());
+        }
+        if (running.get()) {
+            status.put("entriesPerSecond", entriesPerSecond());
+        }
+        status.put("threads", threads);
+        status.put("batchSize", batchSize);
+        return status;
+    }
+
+    private void run(JobCheckpoint checkpoint) {
+        // Batches in submission (_id) order; the checkpoint only advances past the oldest finished ones.
+        Deque<ScoredBatch> inFlight = new ArrayDeque<>();
+        try (Stream<JournalEntry> entries = mongoTemplate.stream(
+                staleEntriesAfter(checkpoint.getLastProcessedId(), checkpoint.getLexiconVersion()), JournalEntry.class)) {
+            List<JournalEntry> batch = new ArrayList<>(batchSize);
+            var iterator = entries.iterator();
+            while (iterator.hasNext() && !cancelRequested && !shuttingDown) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    submit(batch, inFlight, checkpoint);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty() && !cancelRequested && !shuttingDown) {
+                submit(batch, inFlight, checkpoint);
+            }
+            while (!inFlight.isEmpty()) {
+                advance(inFlight.pollFirst(), checkpoint);
+            }
+            if (shuttingDown) {
+                interrupted(checkpoint);
+                return;
+            }
+            finish(checkpoint, cancelRequested ? JobCheckpoint.CANCELLED : JobCheckpoint.COMPLETED);
+        } catch (Exception e) {
+            if (claimLost) {
+                log.warn("Sentiment rescore stopped after {}: another node took the job over.", checkpoint.getLastProcessedId());
+                inFlight.forEach(scored -> scored.future().cancel(true));
+                return;
+            }
+            if (shuttingDown) {
+                interrupted(checkpoint);
+                return;
+            }
+            log.error("Sentiment rescore failed after {}", checkpoint.getLastProcessedId(), e);
+            inFlight.forEach(scored -> scored.future().cancel(true));
+            finish(checkpoint, JobCheckpoint.FAILED);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Query staleEntriesAfter(ObjectId lastProcessedId, Integer lexiconVersion) {
+        Criteria criteria = Criteria.where("lexiconVersion").ne(lexiconVersion);
+        if (lastProcessedId != null) {
+            criteria = criteria.and("_id").gt(lastProcessedId);
+        }
+        Query query = new Query(criteria);
+        query.with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.fields().include("content", "mood", "sentiment", "updatedAt", "userId", "createdAt");
+        query.cursorBatchSize(batchSize);
+        return query;
+    }
+
+    private void submit(List<JournalEntry> batch, Deque<ScoredBatch> inFlight, JobCheckpoint checkpoint) throws Exception {
+        // Bound the work in flight so the stream never runs far ahead of the writers.
+        while (inFlight.size() >= threads * 2) {
+            advance(inFlight.pollFirst(), checkpoint);
+        }
+        ObjectId lastId = batch.get(batch.size() - 1).getId();
+        inFlight.addLast(new ScoredBatch(lastId, batch.size(), scoringPool.submit(() -> scoreAndWrite(batch))));
+    }
+
+    private void advance(ScoredBatch scored, JobCheckpoint checkpoint) throws Exception {
+        int updated = scored.future().get();
+        checkpoint.setLastProcessedId(scored.lastId());
+        checkpoint.setProcessed(checkpoint.getProcessed() + scored.size());
+        checkpoint.setUpdated(checkpoint.getUpdated() + updated);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpoint.setClaimedUntil(LocalDateTime.now().plusSeconds(claimSeconds));
+        if (!jobCheckpointRepositoryImpl.saveOwned(checkpoint)) {
+            claimLost = true;
+            throw new IllegalStateException("The sentiment rescore checkpoint was claimed by another node.");
+        }
+        processedThisRun.addAndGet(scored.size());
+    }
+
+    /**
+     * @return The number of entries written.
+     */
+    private int scoreAndWrite(List<JournalEntry> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JournalEntry.class);
+        ObjectId writeId = new ObjectId();
+        Map<ObjectId, Sentiment> scored = new HashMap<>();
+        for (JournalEntry entry : batch) {
+            // Also written when the sentiment is unchanged, so the entry is no longer stale.
+            Sentiment sentiment = sentimentAnalysisService.score(entry);
+            scored.put(entry.getId(), sentiment);
+            // Skip entries edited since they were read; the edit computes its own sentiment.
+            bulk.updateOne(
+                    new Query(Criteria.where("_id").is(entry.getId()).and("updatedAt").is(entry.getUpdatedAt())),
+                    new Update().set("sentiment", sentiment).set("lexiconVersion", entry.getLexiconVersion())
+                            .set(JournalRollupService.SENTIMENT_WRITE_FIELD, writeId));
+        }
+        int updated = bulk.execute().getModifiedCount();
+        journalRollupService.sentimentsWritten(batch, scored, writeId);
+        return updated;
+    }
+
+    // Left RUNNING on purpose, so the next start-up resumes from the checkpoint; the claim is given up
+    // so that this node's restart, or another node, does not have to wait for it to expire.
+    private void interrupted(JobCheckpoint checkpoint) {
+        log.info("Sentiment rescore interrupted by shutdown after {}", checkpoint.getLastProcessedId());
+        try {
+            checkpoint.setClaimedUntil(LocalDateTime.now());
+            jobCheckpointRepositoryImpl.saveOwned(checkpoint);
+        } catch (Exception e) {
+            log.warn("Could not give up the sentiment rescore claim; it expires on its own. Reason: {}", e.getMessage());
+        }
+    }
+
+    private void finish(JobCheckpoint checkpoint, String status) {
+        checkpoint.setStatus(status);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpoint.setFinishedAt(LocalDateTime.now());
+        jobCheckpointRepositoryImpl.saveOwned(checkpoint);
+        log.info("Sentiment rescore {}: {} entries processed, {} updated, {} entries/s",
+                status, checkpoint.getProcessed(), checkpoint.getUpdated(), entriesPerSecond());
+    }
+
+    private long entriesPerSecond() {
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - runStartedNanos).toMillis();
+        return elapsedMillis == 0 ? 0 : processedThisRun.get() * 1000 / elapsedMillis;
+    }
+
+    private record ScoredBatch(ObjectId lastId, int size, Future<Integer> future) {
+    }
+}
@@ -0,0 +1,107 @@
+package net.manifest.journalapp.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.entity.TokenRevocation;
+import net.manifest.journalapp.model.UserChangedEvent;
+import net.manifest.journalapp.repository.TokenRevocationRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A short-lived, in-memory cache of users whose existing tokens must no longer be accepted.
+ * Stateless JWT authentication trusts the claims inside a token until it expires, so bans,
+ * role changes and password changes are enforced by rejecting every token issued before
+ * the revocation. Entries are mirrored to MongoDB so every node picks them up, and they are
+ * dropped once all tokens they could affect have expired.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    // Revocations recorded on other nodes are re-read with this overlap to tolerate clock skew.
+    private static final long SYNC_OVERLAP_SECONDS = 30;
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${jwt.expiration.ms}")
+    private long jwtExpirationMs;
+
+    // userId (hex) -> epoch millisecond of the revocation
+    private final Map<String, Long> revokedAt = new ConcurrentHashMap<>();
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    @PostConstruct
+    public void init() {
+        sync();
+    }
+
+    /**
+     * Revokes every token issued to the given user so far.
+     * @param userId The ID of the banned or changed user.
+     */
+    public void revokeTokensOf(ObjectId userId) {
+        Instant now = Instant.now();
+        revokedAt.merge(userId.toHexString(), now.toEpochMilli(), Math::max);
+        tokenRevocationRepository.save(new TokenRevocation(userId.toHexString(), now, now.plusMillis(jwtExpirationMs)));
+        log.info("Revoked existing tokens for user ID: {}", userId);
+    }
+
+    /**
+     * Checks whether a token was issued before its user's tokens were revoked.
+     * Tokens carrying only the one-second 'iat' claim are rejected if issued in the same second
+     * as the revocation, since they cannot be told apart from those issued just before it.
+     * @param userId The user id claim of the token.
+     * @param issuedAt The issue time of the token.
+     * @param issuedAtInMillis Whether issuedAt is precise to the millisecond ('iat_ms' claim).
+     * @return true if the token must be rejected.
+     */
+    public boolean isRevoked(String userId, Date issuedAt, boolean issuedAtInMillis) {
+        Long revokedAtMillis = revokedAt.get(userId);
+        if (revokedAtMillis == null) {
+            return false;
+        }
+        if (issuedAt == null) {
+            return true;
+        }
+        if (issuedAtInMillis) {
+            return issuedAt.getTime() <= revokedAtMillis;
+        }
+        return issuedAt.toInstant().getEpochSecond() <= Math.floorDiv(revokedAtMillis, 1000);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public void sync() {
+        Instant startedAt = Instant.now();
+        try {
+            for (TokenRevocation revocation : tokenRevocationRepository.findByRevokedAtAfter(lastSync.minusSeconds(SYNC_OVERLAP_SECONDS))) {
+                long revokedAtMillis = revocation.getRevokedAt().toEpochMilli();
+                Long known = revokedAt.get(revocation.getUserId());
+                if (known == null || known < revokedAtMillis) {
+                    revokedAt.merge(revocation.getUserId(), revokedAtMillis, Math::max);
+                    // The user was changed on another node: drop any copy cached on this one.
+                    eventPublisher.publishEvent(new UserChangedEvent(new ObjectId(revocation.getUserId()), null));
+                }
+            }
+            lastSync = startedAt;
+        } catch (Exception e) {
+            log.error("Error syncing token revocations from the database.", e);
+        }
+        // Forget revocations once every token they could affect has expired.
+        long oldestLiveTokenMillis = startedAt.minusMillis(jwtExpirationMs).toEpochMilli();
+        revokedAt.values().removeIf(millis -> millis < oldestLiveTokenMillis);
+    }
+}
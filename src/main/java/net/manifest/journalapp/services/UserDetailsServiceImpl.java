@@ -1,5 +1,4 @@
 package net.manifest.journalapp.services;
-import net.manifest.journalapp.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -11,12 +10,13 @@ import org.springframework.stereotype.Service;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserService userService;
 
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return  userRepository.findByUsername(username)
+        // Goes through the UserService cache; logins and the JWT database fallback both land here.
+        return  userService.findByUsername(username)
                 .orElseThrow(()-> new UsernameNotFoundException("User not found with username: "+ username));
     }
 }
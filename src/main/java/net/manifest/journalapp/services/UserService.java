@@ -2,17 +2,27 @@ package net.manifest.journalapp.services;
 
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.cache.UserCache;
 import net.manifest.journalapp.dto.auth.ChangePasswordDTO;
 import net.manifest.journalapp.dto.auth.RegistrationDTO;
 import net.manifest.journalapp.dto.auth.UserUpdateDTO;
+import net.manifest.journalapp.entity.JournalEntry;
 import net.manifest.journalapp.entity.User;
 import net.manifest.journalapp.enums.AccountStatus;
 import net.manifest.journalapp.enums.Role;
+import net.manifest.journalapp.model.AuthenticatedUser;
+import net.manifest.journalapp.model.UserChangedEvent;
+import net.manifest.journalapp.repository.CommentBucketRepository;
 import net.manifest.journalapp.repository.JournalEntryRepository;
+import net.manifest.journalapp.repository.JournalRatingRepository;
 import net.manifest.journalapp.repository.UserRepository;
+import net.manifest.journalapp.repository.UserRepositoryImpl;
 import net.manifest.journalapp.repository.WeeklySummaryRepository;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -29,11 +39,25 @@ public class UserService {
         @Autowired
         private UserRepository userRepository;
         @Autowired
+        private UserRepositoryImpl userRepositoryImpl;
+        @Autowired
         private JournalEntryRepository journalEntryRepository;
         @Autowired
         private WeeklySummaryRepository weeklySummaryRepository;
         @Autowired
+        private JournalRollupService journalRollupService;
+        @Autowired
+        private CommentBucketRepository commentBucketRepository;
+        @Autowired
+        private JournalRatingRepository journalRatingRepository;
+        @Autowired
         private PasswordEncoder passwordEncoder;
+        @Autowired
+        private TokenRevocationService tokenRevocationService;
+        @Autowired
+        private UserCache userCache;
+        @Autowired
+        private ApplicationEventPublisher eventPublisher;
 
         //Extract username
         public String authenticatedUsername(){
@@ -41,6 +65,26 @@ public class UserService {
         return authentication.getName();
        }
 
+    /**
+     * Returns the lightweight principal of the logged-in user. With stateless JWT authentication
+     * it is built from the token's claims, so no database lookup is needed; HTTP Basic logins
+     * carry the full User entity, and anything else falls back to a lookup by username.
+     * @return The id, username and authorities of the current user.
+     */
+    public AuthenticatedUser currentUser(){
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
+        }
+        if (authentication.getPrincipal() instanceof User user) {
+            return AuthenticatedUser.from(user);
+        }
+        String username = authentication.getName();
+        return findByUsername(username)
+                .map(AuthenticatedUser::from)
+                .orElseThrow(() -> new RuntimeException("Authenticated user not found in database: " + username));
+    }
+
      /**
       * Saves a user entity to the database. This can be used for both
       * creating a new user and updating an existing one.
@@ -49,9 +93,20 @@ public class UserService {
       */
        public User save(User user) {
         log.debug("Saving user with username: {}", user.getUsername());
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        publishUserChanged(savedUser);
+        return savedUser;
        }
 
+    /**
+     * Drops the user from the in-process UserCache (and any other listener).
+     * Writes below always read the user straight from the repository, so they never
+     * modify a stale cached copy.
+     */
+    private void publishUserChanged(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user));
+    }
+
         //Registration
         public void registerNewUser(RegistrationDTO registrationDTO){
             try{
@@ -77,6 +132,8 @@ public class UserService {
         public User updateUserProfile(String username, UserUpdateDTO userUpdateDTO){
             User user = userRepository.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found with username: " + username));
+            // Evict under the current email too, in case it is about to change.
+            publishUserChanged(user);
 
             if(userUpdateDTO.getName() != null){
                 user.setName(userUpdateDTO.getName());
@@ -86,7 +143,9 @@ public class UserService {
             }
             user.setSentimentAnalysisEnabled(userUpdateDTO.isSentimentAnalysisEnabled());
             user.setUpdatedAt(LocalDateTime.now());
-            return userRepository.save(user);
+            User savedUser = userRepository.save(user);
+            publishUserChanged(savedUser);
+            return savedUser;
         }
 
 
@@ -108,18 +167,26 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(passwordDTO.getNewPassword()));
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        publishUserChanged(user);
+        // Tokens issued with the old password must stop working.
+        tokenRevocationService.revokeTokensOf(user.getId());
     }
 
     public List<User>findAll(){
           return  userRepository.findAll();
     }
 
+    //Cached lookups: concurrent lookups of the same key share one query.
     public  Optional<User> findByUsername(String username){
-           return userRepository.findByUsername(username);
+           return userCache.getByUsername(username, () -> userRepository.findByUsername(username));
     }
 
     public Optional<User> findByEmail(@NonNull String email) {
-            return userRepository.findByEmail(email);
+            return userCache.getByEmail(email, () -> userRepository.findByEmail(email));
+    }
+
+    public Optional<User> findById(@NonNull ObjectId userId) {
+            return userCache.getById(userId, () -> userRepository.findById(userId));
     }
 
 
@@ -135,6 +202,9 @@ public class UserService {
 
         user.getRoles().add(Role.ROLE_ADMIN);
         userRepository.save(user);
+        publishUserChanged(user);
+        // Existing tokens carry the old roles; the user has to log in again to get the new ones.
+        tokenRevocationService.revokeTokensOf(userId);
     }
 
      /****** BAN USER (Only ADMIN can do) *****/
@@ -143,6 +213,8 @@ public class UserService {
                    .orElseThrow(() -> new RuntimeException("User not found with id: "+userId));
            user.setAccountStatus(AccountStatus.BANNED);
            userRepository.save(user);
+           publishUserChanged(user);
+           tokenRevocationService.revokeTokensOf(userId);
     }
 
 
@@ -159,12 +231,20 @@ public class UserService {
              throw new RuntimeException("User not found with id: " + userId);
          }
 
-         //1. Delete the associated data
+         //1. Delete the associated data, including the comments and ratings of the user's entries
+        List<ObjectId> journalIds = journalEntryRepository.findIdsByUserId(userId).stream()
+                .map(JournalEntry::getId)
+                .toList();
+        commentBucketRepository.deleteByJournalIdIn(journalIds);
+        journalRatingRepository.deleteByJournalIdIn(journalIds);
         journalEntryRepository.deleteAllByUserId(userId);
-         //2. Delete the associated weekly summary
+         //2. Delete the associated weekly summary and activity rollups
         weeklySummaryRepository.deleteByUserId(userId);  // will implement in future
+        journalRollupService.deleteForUser(userId);
          //3. Delete the user
         userRepository.deleteById(userId);
+        eventPublisher.publishEvent(new UserChangedEvent(userId, null));
+        tokenRevocationService.revokeTokensOf(userId);
     }
 
 
@@ -188,7 +268,7 @@ public class UserService {
             // If the user already exists, we simply update their last login time and return them.
             User existingUser = userOptional.get();
             existingUser.setLastLoginAt(LocalDateTime.now());
-            return userRepository.save(existingUser);
+            return save(existingUser);
         }else{
             // If the user is new, we create a new account for them.
             User newUser = new User();
@@ -206,4 +286,15 @@ public class UserService {
         }
     }
 
+    /**
+     * Stores the email validity of users saved before it was stored (see User.emailValid).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillEmailValid() {
+        long migrated = userRepositoryImpl.backfillEmailValid();
+        if (migrated > 0) {
+            log.info("Backfilled the email validity of {} users", migrated);
+        }
+    }
+
 }
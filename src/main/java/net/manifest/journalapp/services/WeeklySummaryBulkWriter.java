@@ -0,0 +1,121 @@
+package net.manifest.journalapp.services;
+
+import com.mongodb.bulk.BulkWriteError;
+import lombok.extern.slf4j.Slf4j;
+import net.manifest.journalapp.entity.WeeklySummary;
+import net.manifest.journalapp.repository.WeeklySummaryRepositoryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the weekly summaries computed per user as unordered bulk upserts on userId, instead of a
+ * read and a save per user.
+ * <p>
+ * Each caller (e.g. a job partition) buffers its summaries in a Batch of its own, which is written
+ * once it holds 'batch-size' summaries and when the caller flushes it before it reports its work
+ * done. Failed summaries are logged one by one and counted in the batch that buffered them.
+ */
+@Slf4j
+@Service
+public class WeeklySummaryBulkWriter {
+
+    @Autowired
+    private WeeklySummaryRepositoryImpl weeklySummaryRepositoryImpl;
+
+    @Value("${weekly-summary.bulk.batch-size:500}")
+    private int batchSize;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * @return A new, empty buffer of summaries, for use by one thread.
+     */
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    /**
+     * @return The summaries written and failed since startup.
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * The summaries of one caller that are not written yet, and its failures not yet reported.
+     */
+    public class Batch {
+
+        private final List<WeeklySummary> buffer = new ArrayList<>();
+
+        private long unreportedFailures;
+
+        private Batch() {
+        }
+
+        /**
+         * Adds a summary to the buffer, writing the buffer when it is full.
+         */
+        public void add(WeeklySummary summary) {
+            buffer.add(summary);
+            if (buffer.size() >= batchSize) {
+                writeBuffer();
+            }
+        }
+
+        /**
+         * Writes the buffered summaries.
+         * @return The summaries of this batch that failed since the previous flush, including those
+         * written when the buffer was full.
+         */
+        public long flush() {
+            writeBuffer();
+            long failures = unreportedFailures;
+            unreportedFailures = 0;
+            return failures;
+        }
+
+        private void writeBuffer() {
+            if (!buffer.isEmpty()) {
+                unreportedFailures += write(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    // @return The number of summaries that could not be written.
+    private int write(List<WeeklySummary> batch) {
+        try {
+            weeklySummaryRepositoryImpl.upsertAll(batch);
+            written.addAndGet(batch.size());
+            return 0;
+        } catch (BulkOperationException e) {
+            // Unordered: every upsert was attempted, and each error names the summary it belongs to.
+            for (BulkWriteError error : e.getErrors()) {
+                log.error("Could not write the weekly summary of user {}: {}", batch.get(error.getIndex()).getUserId(), error.getMessage());
+            }
+            int failures = e.getErrors().size();
+            written.addAndGet(batch.size() - failures);
+            failed.addAndGet(failures);
+            return failures;
+        } catch (RuntimeException e) {
+            // The bulk was not sent at all (e.g. no connection), so all of its summaries failed.
+            for (WeeklySummary summary : batch) {
+                log.error("Could not write the weekly summary of user {}: {}", summary.getUserId(), e.getMessage());
+            }
+            failed.addAndGet(batch.size());
+            return batch.size();
+        }
+    }
+}
@@ -1,47 +1,88 @@
 package net.manifest.journalapp.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import net.manifest.journalapp.entity.User;
+import net.manifest.journalapp.enums.Role;
+import net.manifest.journalapp.model.JwtClaims;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 @Component
 public class JwtUtils {
 
+    public static final String ROLES_CLAIM = "roles";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ACCOUNT_STATUS_CLAIM = "status";
+    // 'iat' only has one-second precision; this copy in milliseconds lets revocations tell apart
+    // tokens issued just before and just after them.
+    public static final String ISSUED_AT_MS_CLAIM = "iat_ms";
+
     @Value("${jwt.secret.key}") // Injects the secret key from application.yml
     private String SECRET_KEY;
     @Value("${jwt.expiration.ms}")
     private long jwtExpirationMs;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // Both are immutable and thread-safe, so they are built once and shared by every request
+    // instead of re-deriving the HMAC key and a new parser on each call.
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
-    public String extractUsername(String token) {
+    /**
+     * Verifies the token's signature and expiry and returns its claims, all in one parse.
+     * @param token The compact JWT from the Authorization header.
+     * @return The verified claims (subject, user id, account status, expiry and roles).
+     * @throws JwtException if the token is malformed, tampered with or expired.
+     */
+    public JwtClaims verifyToken(String token) {
         Claims claims = extractAllClaims(token);
-        return claims.getSubject();
+        Number issuedAtMs = claims.get(ISSUED_AT_MS_CLAIM, Number.class);
+        return new JwtClaims(
+                claims.getSubject(),
+                claims.get(USER_ID_CLAIM, String.class),
+                claims.get(ACCOUNT_STATUS_CLAIM, String.class),
+                issuedAtMs != null ? new Date(issuedAtMs.longValue()) : claims.getIssuedAt(),
+                issuedAtMs != null,
+                claims.getExpiration(),
+                extractRoles(claims));
     }
 
-    private Date extractExpiration(String token) {
-        return extractAllClaims(token).getExpiration();
+    public String extractUsername(String token) {
+        Claims claims = extractAllClaims(token);
+        return claims.getSubject();
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private List<String> extractRoles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof Collection<?> roleCollection)) {
+            return Collections.emptyList();
+        }
+        List<String> roleNames = new ArrayList<>(roleCollection.size());
+        for (Object role : roleCollection) {
+            roleNames.add(String.valueOf(role));
+        }
+        return roleNames;
     }
 
     public String generateToken(String username) {
@@ -49,21 +90,44 @@ public class JwtUtils {
         return createToken(claims,username);
     }
 
-    private String createToken(Map<String,Object>claims,String subject){
+    /**
+     * Generates a token for the given user. The user id, roles and account status are
+     * carried as signed claims so the JwtFilter can authenticate without a database lookup.
+     * @param user The authenticated user.
+     * @return A signed JWT.
+     */
+    public String generateToken(User user) {
+        Map<String,Object> claims=new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId().toHexString());
+        claims.put(ROLES_CLAIM, user.getRoles().stream().map(Role::name).toList());
+        claims.put(ACCOUNT_STATUS_CLAIM, user.getAccountStatus().name());
+        return createToken(claims,user.getUsername());
+    }
 
+    private String createToken(Map<String,Object>claims,String subject){
+        long now = System.currentTimeMillis();
+        claims.put(ISSUED_AT_MS_CLAIM, now);
         return Jwts.builder()
                 .claims(claims)
                 .subject(subject)
                 .header().empty().add("typ", "JWT")
                 .and()
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs)) //5 minutes expiration
-                .signWith(getSigningKey())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + jwtExpirationMs)) //5 minutes expiration
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * The parser rejects expired tokens itself, so a token is valid exactly when it parses.
+     */
     public Boolean validateToken(String token){
-        return !isTokenExpired(token);
+        try {
+            extractAllClaims(token);
+            return true;
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
     }
 
 
@@ -2,8 +2,20 @@ package net.manifest.journalapp.utils.journalutils;
 
 import lombok.Data;
 
+/**
+ * Running rating totals of a public entry. Both fields are updated in place with a single
+ * atomic $inc per rating; the average is derived on read and never stored.
+ */
 @Data
 public class RatingStats {
-    private double averageRating = 0.0;
+    private long ratingSum = 0;
     private int ratingCount = 0;
+
+    public double getAverageRating() {
+        if (ratingCount == 0) {
+            return 0.0;
+        }
+        // Round to 2 decimal places for a clean average
+        return Math.round(((double) ratingSum / ratingCount) * 100.0) / 100.0;
+    }
 }
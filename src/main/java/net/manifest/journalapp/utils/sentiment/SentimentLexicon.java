@@ -0,0 +1,208 @@
+package net.manifest.journalapp.utils.sentiment;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable keyword -> weight table for rule-based sentiment scoring.
+ * <p>
+ * Keywords are stored in an open-addressing hash table of char arrays. {@link #score} walks the
+ * text once, folds case on the fly and probes the table with the hash of each token, so scoring
+ * allocates nothing per token: no regex, no lower-cased copy of the text and no token list.
+ * <p>
+ * Tokens are runs of [a-z0-9_] after lower-casing, exactly the tokens the previous
+ * {@code toLowerCase().split("\\W+")} implementation produced.
+ */
+public final class SentimentLexicon {
+
+    /**
+     * The version of the lexicon compiled from the keyword lists built into the application,
+     * used until a version is published to MongoDB.
+     */
+    public static final int BUILT_IN_VERSION = 0;
+
+    private static final char CAPITAL_I_WITH_DOT = '\u0130';
+
+    private final int version;
+    private final char[][] keys;
+    private final int[] weights;
+    // slot -> index into keys + 1; 0 marks an empty slot
+    private final int[] table;
+    private final int mask;
+    private final int maxKeyLength;
+
+    private SentimentLexicon(int version, Map<String, Integer> weightsByWord) {
+        this.version = version;
+        int size = weightsByWord.size();
+        this.keys = new char[size][];
+        this.weights = new int[size];
+
+        // Keep the load factor at or below 1/4 so probe sequences stay short.
+        int capacity = Integer.highestOneBit(Math.max(4, size * 4) - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+
+        int index = 0;
+        int longest = 0;
+        for (Map.Entry<String, Integer> entry : weightsByWord.entrySet()) {
+            char[] key = entry.getKey().toCharArray();
+            keys[index] = key;
+            weights[index] = entry.getValue();
+            longest = Math.max(longest, key.length);
+
+            int slot = spread(hash(key)) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+            index++;
+        }
+        this.maxKeyLength = longest;
+    }
+
+    /**
+     * Builds the built-in lexicon from keyword lists; see {@link #weightsOf}.
+     */
+    public static SentimentLexicon of(List<String> positiveKeywords, List<String> negativeKeywords) {
+        return of(BUILT_IN_VERSION, weightsOf(positiveKeywords, negativeKeywords));
+    }
+
+    /**
+     * Compiles a lexicon from per-word weights. Words are lower-cased (weights of words that
+     * differ only in case are added up) and words weighing 0 are dropped.
+     */
+    public static SentimentLexicon of(int version, Map<String, Integer> weights) {
+        Map<String, Integer> weightsByWord = new LinkedHashMap<>();
+        weights.forEach((word, weight) -> weightsByWord.merge(word.toLowerCase(Locale.ROOT), weight, Integer::sum));
+        weightsByWord.values().removeIf(weight -> weight == 0);
+        return new SentimentLexicon(version, weightsByWord);
+    }
+
+    /**
+     * Turns keyword lists into weights: each positive keyword weighs +1 and each negative
+     * keyword -1. A keyword listed more than once weighs once per listing, as it did when the
+     * lists were scanned one word at a time.
+     */
+    public static Map<String, Integer> weightsOf(List<String> positiveKeywords, List<String> negativeKeywords) {
+        Map<String, Integer> weightsByWord = new LinkedHashMap<>();
+        for (String word : positiveKeywords) {
+            weightsByWord.merge(word.toLowerCase(Locale.ROOT), 1, Integer::sum);
+        }
+        for (String word : negativeKeywords) {
+            weightsByWord.merge(word.toLowerCase(Locale.ROOT), -1, Integer::sum);
+        }
+        return weightsByWord;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Sums the weights of the keywords found in the text.
+     * @param text The text to score; may be null.
+     * @param countOccurrences If false, each keyword counts once however often it occurs
+     *                         (the original behaviour); if true, every occurrence counts.
+     * @return The keyword score.
+     */
+    public int score(CharSequence text, boolean countOccurrences) {
+        if (text == null || keys.length == 0) {
+            return 0;
+        }
+        // One bit per keyword, to count each keyword once.
+        long[] seen = countOccurrences ? null : new long[(keys.length + 63) >>> 6];
+
+        int score = 0;
+        int length = text.length();
+        int tokenStart = 0;
+        int tokenLength = 0;
+        int hash = 0;
+        for (int i = 0; i <= length; i++) {
+            char raw = (i < length) ? text.charAt(i) : ' ';
+            char c = fold(raw);
+            if (isWordChar(c)) {
+                if (tokenLength == 0) {
+                    tokenStart = i;
+                    hash = 0;
+                }
+                hash = 31 * hash + c;
+                tokenLength++;
+                // String.toLowerCase turns it into 'i' plus a combining dot, which ends the token.
+                if (raw != CAPITAL_I_WITH_DOT) {
+                    continue;
+                }
+            }
+            if (tokenLength > 0 && tokenLength <= maxKeyLength) {
+                int index = find(text, tokenStart, tokenLength, hash);
+                if (index >= 0) {
+                    if (seen == null) {
+                        score += weights[index];
+                    } else if ((seen[index >>> 6] & (1L << index)) == 0) {
+                        seen[index >>> 6] |= 1L << index;
+                        score += weights[index];
+                    }
+                }
+            }
+            tokenLength = 0;
+        }
+        return score;
+    }
+
+    private int find(CharSequence text, int start, int length, int hash) {
+        int slot = spread(hash) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            char[] key = keys[entry - 1];
+            if (key.length == length && matches(key, text, start)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static boolean matches(char[] key, CharSequence text, int start) {
+        for (int k = 0; k < key.length; k++) {
+            if (key[k] != fold(text.charAt(start + k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same as String.hashCode, so table building and scanning agree.
+    private static int hash(char[] key) {
+        int h = 0;
+        for (char c : key) {
+            h = 31 * h + c;
+        }
+        return h;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Lower-cases a character. Non-ASCII characters are only folded when their lower case is
+     * ASCII (e.g. the Kelvin sign), since any other non-ASCII character separates tokens anyway.
+     */
+    private static char fold(char c) {
+        if (c < 128) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        char lower = Character.toLowerCase(c);
+        return lower < 128 ? lower : c;
+    }
+
+    // The complement of the regex \W: [a-zA-Z_0-9], after folding.
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
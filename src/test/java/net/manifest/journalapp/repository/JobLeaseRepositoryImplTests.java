@@ -0,0 +1,63 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JobLease;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+@SpringBootTest
+public class JobLeaseRepositoryImplTests {
+
+    @Autowired
+    private JobLeaseRepositoryImpl jobLeaseRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final String name = "lease-test-" + UUID.randomUUID();
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @AfterEach
+    public void deleteLease() {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(name)), JobLease.class);
+    }
+
+    @Test
+    public void testOtherOwnerCannotTakeAnUnexpiredLease() {
+        Assertions.assertTrue(jobLeaseRepository.tryAcquire(name, "node-a", now, now.plusMinutes(2)));
+
+        Assertions.assertFalse(jobLeaseRepository.tryAcquire(name, "node-b", now.plusMinutes(1), now.plusMinutes(3)));
+        Assertions.assertEquals("node-a", mongoTemplate.findById(name, JobLease.class).getOwner());
+    }
+
+    @Test
+    public void testOtherOwnerTakesOverAfterExpiry() {
+        Assertions.assertTrue(jobLeaseRepository.tryAcquire(name, "node-a", now, now.plusMinutes(2)));
+
+        Assertions.assertTrue(jobLeaseRepository.tryAcquire(name, "node-b", now.plusMinutes(2), now.plusMinutes(4)));
+        JobLease lease = mongoTemplate.findById(name, JobLease.class);
+        Assertions.assertEquals("node-b", lease.getOwner());
+        Assertions.assertEquals(now.plusMinutes(4), lease.getExpiresAt());
+        // The previous owner can no longer renew it.
+        Assertions.assertFalse(jobLeaseRepository.extend(name, "node-a", now.plusMinutes(6)));
+    }
+
+    @Test
+    public void testSameOwnerReacquiresBeforeExpiry() {
+        Assertions.assertTrue(jobLeaseRepository.tryAcquire(name, "node-a", now, now.plusMinutes(2)));
+
+        Assertions.assertTrue(jobLeaseRepository.tryAcquire(name, "node-a", now.plusMinutes(1), now.plusMinutes(5)));
+        Assertions.assertEquals(now.plusMinutes(5), mongoTemplate.findById(name, JobLease.class).getExpiresAt());
+        Assertions.assertTrue(jobLeaseRepository.extend(name, "node-a", now.plusMinutes(7)));
+    }
+}
@@ -0,0 +1,121 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.JobPartition;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+@SpringBootTest
+public class JobPartitionRepositoryImplTests {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private JobPartitionRepositoryImpl jobPartitionRepositoryImpl;
+
+    @Autowired
+    private JobPartitionRepository jobPartitionRepository;
+
+    private final String jobName = "partition-test-" + UUID.randomUUID();
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    private JobPartition partition;
+
+    @BeforeEach
+    public void createPartition() {
+        partition = new JobPartition();
+        partition.setId(jobName + ":0");
+        partition.setJobName(jobName);
+        partition.setRunId(jobName);
+        partition.setRunStartedAt(now);
+        partition.setIndex(0);
+        partition.setStatus(JobPartition.PENDING);
+        partition.setUpdatedAt(now);
+        jobPartitionRepository.save(partition);
+    }
+
+    @AfterEach
+    public void deletePartition() {
+        jobPartitionRepository.deleteById(partition.getId());
+    }
+
+    @Test
+    public void testClaimedPartitionIsNotClaimedAgainWhileLeased() {
+        Assertions.assertNotNull(claim("node-a", now));
+
+        Assertions.assertNull(claim("node-b", now.plusSeconds(30)));
+    }
+
+    @Test
+    public void testExpiredPartitionResumesAfterLastUserId() {
+        JobPartition claimed = claim("node-a", now);
+        ObjectId lastUserId = new ObjectId();
+        claimed.setProcessed(42);
+        claimed.setLastUserId(lastUserId);
+        claimed.setUpdatedAt(now.plusSeconds(10));
+        Assertions.assertTrue(jobPartitionRepositoryImpl.saveProgress(claimed));
+
+        // node-a dies; once its lease has expired another node takes over where it stopped.
+        JobPartition resumed = claim("node-b", now.plusMinutes(2));
+        Assertions.assertNotNull(resumed);
+        Assertions.assertEquals("node-b", resumed.getOwner());
+        Assertions.assertEquals(2, resumed.getAttempts());
+        Assertions.assertEquals(42, resumed.getProcessed());
+        Assertions.assertEquals(lastUserId, resumed.getLastUserId());
+    }
+
+    @Test
+    public void testSaveProgressOnlyAppliesForTheOwner() {
+        JobPartition stale = claim("node-a", now);
+        claim("node-b", now.plusMinutes(2));
+
+        stale.setProcessed(7);
+        stale.setStatus(JobPartition.COMPLETED);
+        Assertions.assertFalse(jobPartitionRepositoryImpl.saveProgress(stale));
+
+        JobPartition stored = jobPartitionRepository.findById(partition.getId()).orElseThrow();
+        Assertions.assertEquals("node-b", stored.getOwner());
+        Assertions.assertEquals(JobPartition.RUNNING, stored.getStatus());
+        Assertions.assertEquals(0, stored.getProcessed());
+    }
+
+    @Test
+    public void testPartitionFailsAfterMaxAttempts() {
+        LocalDateTime time = now;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Assertions.assertNotNull(claim("node-" + attempt, time));
+            // Not failed while its lease is still valid, even on the last attempt.
+            jobPartitionRepositoryImpl.failAbandoned(MAX_ATTEMPTS, time.plusSeconds(1));
+            Assertions.assertEquals(JobPartition.RUNNING, jobPartitionRepository.findById(partition.getId()).orElseThrow().getStatus());
+            time = time.plusMinutes(2);
+        }
+
+        Assertions.assertNull(claim("node-last", time));
+        jobPartitionRepositoryImpl.failAbandoned(MAX_ATTEMPTS, time);
+        Assertions.assertEquals(JobPartition.FAILED, jobPartitionRepository.findById(partition.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testPendingPartitionFailsAfterMaxAttempts() {
+        partition.setAttempts(MAX_ATTEMPTS);
+        jobPartitionRepository.save(partition);
+
+        Assertions.assertNull(claim("node-a", now));
+        jobPartitionRepositoryImpl.failAbandoned(MAX_ATTEMPTS, now);
+        Assertions.assertEquals(JobPartition.FAILED, jobPartitionRepository.findById(partition.getId()).orElseThrow().getStatus());
+    }
+
+    private JobPartition claim(String owner, LocalDateTime time) {
+        return jobPartitionRepositoryImpl.claimNext(List.of(jobName), owner, time, time.plusMinutes(1), MAX_ATTEMPTS);
+    }
+}
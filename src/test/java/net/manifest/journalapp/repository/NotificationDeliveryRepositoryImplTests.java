@@ -0,0 +1,81 @@
+package net.manifest.journalapp.repository;
+
+import net.manifest.journalapp.entity.NotificationDelivery;
+import net.manifest.journalapp.entity.NotificationOutbox;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+
+@SpringBootTest
+public class NotificationDeliveryRepositoryImplTests {
+
+    private static final String WEEK = "2026-W42";
+
+    @Autowired
+    private NotificationDeliveryRepositoryImpl notificationDeliveryRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final ObjectId userId = new ObjectId();
+
+    private final String id = NotificationOutbox.idOf(userId, WEEK);
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @AfterEach
+    public void deleteDelivery() {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(id)), NotificationDelivery.class);
+    }
+
+    @Test
+    public void testOnlyOneSenderClaimsADelivery() {
+        Assertions.assertTrue(claim("sender-a", now));
+
+        Assertions.assertFalse(claim("sender-b", now.plusSeconds(10)));
+    }
+
+    @Test
+    public void testSentDeliveryIsNeverClaimedAgain() {
+        Assertions.assertTrue(claim("sender-a", now));
+        Assertions.assertTrue(notificationDeliveryRepository.markSent(id, "sender-a", now, now.plusDays(30)));
+
+        Assertions.assertFalse(claim("sender-b", now.plusHours(1)));
+        Assertions.assertEquals(Set.of(id), notificationDeliveryRepository.findSentIds(List.of(id, "other:" + WEEK)));
+    }
+
+    @Test
+    public void testReleasedClaimCanBeClaimedAgain() {
+        Assertions.assertTrue(claim("sender-a", now));
+        notificationDeliveryRepository.release(id, "sender-a");
+
+        Assertions.assertTrue(claim("sender-b", now.plusSeconds(10)));
+        Assertions.assertTrue(notificationDeliveryRepository.findSentIds(List.of(id)).isEmpty());
+    }
+
+    @Test
+    public void testExpiredClaimIsTakenOverAndOldSenderCannotMarkIt() {
+        Assertions.assertTrue(claim("sender-a", now));
+
+        Assertions.assertTrue(claim("sender-b", now.plusMinutes(10)));
+        Assertions.assertFalse(notificationDeliveryRepository.markSent(id, "sender-a", now.plusMinutes(10), now.plusDays(30)));
+        // Nor can it release the new sender's claim.
+        notificationDeliveryRepository.release(id, "sender-a");
+        Assertions.assertFalse(claim("sender-c", now.plusMinutes(11)));
+    }
+
+    private boolean claim(String sender, LocalDateTime time) {
+        return notificationDeliveryRepository.tryClaim(id, userId, WEEK, sender, time, time.plusMinutes(5), time.plusDays(30));
+    }
+}
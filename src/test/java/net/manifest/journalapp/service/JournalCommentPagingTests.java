@@ -0,0 +1,105 @@
+package net.manifest.journalapp.service;
+
+import net.manifest.journalapp.dto.journal.CommentResponseDTO;
+import net.manifest.journalapp.dto.journal.CursorPage;
+import net.manifest.journalapp.entity.CommentBucket;
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.model.AuthenticatedUser;
+import net.manifest.journalapp.repository.CommentBucketRepository;
+import net.manifest.journalapp.repository.JournalEntryRepository;
+import net.manifest.journalapp.services.JournalEntryService;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+public class JournalCommentPagingTests {
+
+    @Autowired
+    private JournalEntryService journalEntryService;
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    private CommentBucketRepository commentBucketRepository;
+
+    private final AuthenticatedUser user = new AuthenticatedUser(new ObjectId(), "comment-paging-test", List.of());
+
+    private ObjectId journalId;
+
+    @BeforeEach
+    public void createPublicEntry() {
+        JournalEntry entry = new JournalEntry();
+        entry.setUserId(user.getId());
+        entry.setTitle("Comment paging");
+        entry.setPublic(true);
+        entry.setCreatedAt(LocalDateTime.now());
+        journalId = journalEntryRepository.save(entry).getId();
+    }
+
+    @AfterEach
+    public void deleteEntry() {
+        commentBucketRepository.deleteByJournalId(journalId);
+        journalEntryRepository.deleteById(journalId);
+    }
+
+    @Test
+    public void testPagesReadEveryCommentOnceInOrderAcrossBuckets() {
+        int total = 2 * CommentBucket.BUCKET_SIZE + 50;
+        for (int i = 0; i < total; i++) {
+            journalEntryService.addComment(journalId, "comment " + i, user);
+        }
+        Assertions.assertEquals(total, journalEntryRepository.findById(journalId).orElseThrow().getCommentCount());
+
+        List<String> read = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<CommentResponseDTO> page = journalEntryService.getComments(journalId, cursor, 40).orElseThrow();
+            Assertions.assertTrue(page.getItems().size() <= 40);
+            page.getItems().forEach(comment -> read.add(comment.getText()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 20);
+
+        Assertions.assertEquals(total, read.size());
+        for (int i = 0; i < total; i++) {
+            Assertions.assertEquals("comment " + i, read.get(i));
+        }
+    }
+
+    @Test
+    public void testRejectsCursorsThatAreNotSeqAndIndex() {
+        journalEntryService.addComment(journalId, "only comment", user);
+        String bucketId = commentBucketRepository.findByJournalId(journalId, PageRequest.of(0, 1))
+                .get(0).getId().toHexString();
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> journalEntryService.getComments(journalId, bucketId + ":0", 10));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> journalEntryService.getComments(journalId, "0:-1", 10));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> journalEntryService.getComments(journalId, "0", 10));
+    }
+
+    @Test
+    public void testPrivateEntryHasNoComments() {
+        JournalEntry entry = journalEntryRepository.findById(journalId).orElseThrow();
+        entry.setPublic(false);
+        journalEntryRepository.save(entry);
+
+        Assertions.assertTrue(journalEntryService.getComments(journalId, null, 10).isEmpty());
+        Assertions.assertThrows(RuntimeException.class,
+                () -> journalEntryService.addComment(journalId, "hidden", user));
+    }
+}
@@ -0,0 +1,46 @@
+package net.manifest.journalapp.service;
+
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.RollupPeriod;
+import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.model.RollupDelta;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalRollupTests {
+
+    @Test
+    public void unchangedMoodAndSentimentProduceNoWrite() {
+        RollupDelta delta = new RollupDelta(new ObjectId(), LocalDate.of(2026, 10, 18))
+                .mood(Mood.HAPPY, -1).mood(Mood.HAPPY, 1)
+                .sentiment(Sentiment.POSITIVE, -1).sentiment(Sentiment.POSITIVE, 1);
+        assertTrue(delta.isEmpty());
+    }
+
+    @Test
+    public void changedMoodMovesBetweenHistogramBuckets() {
+        RollupDelta delta = new RollupDelta(new ObjectId(), LocalDate.of(2026, 10, 18))
+                .mood(Mood.HAPPY, -1).mood(Mood.GRATEFUL, 1)
+                .sentiment(null, -1).sentiment(Sentiment.NEUTRAL, 1);
+        assertEquals(Map.of(
+                "moodScoreSum", (long) Mood.GRATEFUL.getScore() - Mood.HAPPY.getScore(),
+                "moodCounts.HAPPY", -1L,
+                "moodCounts.GRATEFUL", 1L,
+                "sentimentCount", 1L,
+                "sentimentCounts.NEUTRAL", 1L), delta.getIncrements());
+    }
+
+    @Test
+    public void weeksAreIsoWeeksStartingOnMonday() {
+        LocalDate sunday = LocalDate.of(2021, 1, 3);
+        assertEquals("2020-W53", RollupPeriod.WEEK.keyOf(sunday));
+        assertEquals(LocalDate.of(2020, 12, 28), RollupPeriod.WEEK.startOf(sunday));
+        assertEquals("2021-01-03", RollupPeriod.DAY.keyOf(sunday));
+    }
+}
@@ -0,0 +1,104 @@
+package net.manifest.journalapp.service;
+
+import net.manifest.journalapp.dto.journal.CursorPage;
+import net.manifest.journalapp.dto.journal.JournalSummaryDTO;
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.model.AuthenticatedUser;
+import net.manifest.journalapp.repository.JournalEntryRepository;
+import net.manifest.journalapp.services.JournalEntryService;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@SpringBootTest
+public class JournalTimelinePagingTests {
+
+    @Autowired
+    private JournalEntryService journalEntryService;
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    private final AuthenticatedUser user = new AuthenticatedUser(new ObjectId(), "timeline-paging-test", List.of());
+
+    private final List<JournalEntry> entries = new ArrayList<>();
+
+    @BeforeEach
+    public void createEntries() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        for (int i = 0; i < 25; i++) {
+            JournalEntry entry = new JournalEntry();
+            entry.setUserId(user.getId());
+            entry.setTitle("Entry " + i);
+            entry.setContent("Content of entry " + i);
+            // Groups of three share a createdAt, so pages have to break ties on _id.
+            entry.setCreatedAt(start.minusMinutes(i / 3));
+            entry.setTags(new ArrayList<>(List.of(i % 2 == 0 ? "even" : "odd")));
+            entries.add(journalEntryRepository.save(entry));
+        }
+    }
+
+    @AfterEach
+    public void deleteEntries() {
+        journalEntryRepository.deleteAll(entries);
+    }
+
+    @Test
+    public void testPagesReadEveryEntryOnceNewestFirst() {
+        List<String> expected = entries.stream()
+                .sorted(Comparator.comparing(JournalEntry::getCreatedAt).thenComparing(JournalEntry::getId).reversed())
+                .map(entry -> entry.getId().toHexString())
+                .toList();
+
+        Assertions.assertEquals(expected, readAll(null, 7));
+    }
+
+    @Test
+    public void testPagesKeepTheTagFilter() {
+        List<String> expected = entries.stream()
+                .filter(entry -> entry.getTags().contains("odd"))
+                .sorted(Comparator.comparing(JournalEntry::getCreatedAt).thenComparing(JournalEntry::getId).reversed())
+                .map(entry -> entry.getId().toHexString())
+                .toList();
+
+        Assertions.assertEquals(expected, readAll("odd", 5));
+    }
+
+    @Test
+    public void testLastPageHasNoNextCursor() {
+        CursorPage<JournalSummaryDTO> page = journalEntryService.getEntriesForUserAfter(user, null, null, 25, 0);
+
+        Assertions.assertEquals(25, page.getItems().size());
+        Assertions.assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testRejectsInvalidCursor() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> journalEntryService.getEntriesForUserAfter(user, null, "not-a-cursor", 10, 0));
+    }
+
+    private List<String> readAll(String tag, int size) {
+        List<String> read = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<JournalSummaryDTO> page = journalEntryService.getEntriesForUserAfter(user, tag, cursor, size, 0);
+            Assertions.assertTrue(page.getItems().size() <= size);
+            page.getItems().forEach(summary -> read.add(summary.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 20);
+        return read;
+    }
+}
@@ -0,0 +1,117 @@
+package net.manifest.journalapp.service;
+
+import net.manifest.journalapp.entity.JournalEntry;
+import net.manifest.journalapp.enums.Mood;
+import net.manifest.journalapp.enums.Sentiment;
+import net.manifest.journalapp.services.SentimentAnalysisService;
+import net.manifest.journalapp.utils.sentiment.SentimentLexicon;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the hashed lexicon scores every text exactly like the original
+ * split-and-contains implementation, which is copied here as the reference.
+ */
+public class SentimentAnalysisServiceTests {
+
+    private static final SentimentLexicon LEXICON = SentimentLexicon.of(
+            SentimentAnalysisService.POSITIVE_KEYWORDS, SentimentAnalysisService.NEGATIVE_KEYWORDS);
+
+    private static final List<String> SAMPLES = List.of(
+            "",
+            "   ",
+            "Today was a HAPPY day, full of joy! Happy happy happy.",
+            "I feel insecure and anxious; insecure again.",
+            "karma-bad karma bad_day happy_hour happy2 2happy",
+            "Radhe Radhe! Hare-Krishna, om shanti. Temple visit with family.",
+            "Stressed, exhausted... and tired. But grateful for my team's support.",
+            "Karma and İnsecure and KALİ and café happyés Karma",
+            "tabs\tand\nnewlines\r\nlove hate"
+    );
+
+    @Test
+    public void lexiconMatchesLegacyScoringOnSamples() {
+        for (String text : SAMPLES) {
+            assertEquals(legacyKeywordScore(text), LEXICON.score(text, false), text);
+        }
+    }
+
+    @Test
+    public void lexiconMatchesLegacyScoringOnRandomTexts() {
+        List<String> vocabulary = new ArrayList<>();
+        vocabulary.addAll(SentimentAnalysisService.POSITIVE_KEYWORDS);
+        vocabulary.addAll(SentimentAnalysisService.NEGATIVE_KEYWORDS);
+        vocabulary.addAll(List.of("the", "a", "day", "was", "i", "felt", "x", "_", "42"));
+        String[] separators = {" ", "  ", ", ", ". ", "!", "-", "'", "\n", "_", "9", "é"};
+
+        Random random = new Random(42);
+        for (int run = 0; run < 2_000; run++) {
+            StringBuilder text = new StringBuilder();
+            int words = random.nextInt(60);
+            for (int w = 0; w < words; w++) {
+                String word = vocabulary.get(random.nextInt(vocabulary.size()));
+                text.append(random.nextBoolean() ? word : word.toUpperCase())
+                        .append(separators[random.nextInt(separators.length)]);
+            }
+            assertEquals(legacyKeywordScore(text.toString()), LEXICON.score(text, false), text.toString());
+        }
+    }
+
+    @Test
+    public void analyzeKeepsTheLegacySentimentBuckets() {
+        SentimentAnalysisService service = new SentimentAnalysisService();
+        for (String text : SAMPLES) {
+            for (Mood mood : Mood.values()) {
+                JournalEntry entry = new JournalEntry();
+                entry.setContent(text);
+                entry.setMood(mood);
+                assertEquals(legacySentiment(mood, text), service.analyze(entry, LEXICON), mood + " / " + text);
+            }
+        }
+    }
+
+    @Test
+    public void countingOccurrencesCountsEveryRepeat() {
+        assertEquals(1, LEXICON.score("happy happy HAPPY", false));
+        assertEquals(3, LEXICON.score("happy happy HAPPY", true));
+        assertEquals(-4, LEXICON.score("insecure, insecure", true));
+    }
+
+    // --- The original implementation, kept as the reference ---
+
+    private static int legacyKeywordScore(String content) {
+        if (content == null || content.isBlank()) {
+            return 0;
+        }
+        List<String> tokens = Arrays.stream(content.toLowerCase().split("\\W+"))
+                .collect(Collectors.toList());
+        int keywordScore = 0;
+        for (String word : SentimentAnalysisService.POSITIVE_KEYWORDS) {
+            if (tokens.contains(word)) {
+                keywordScore++;
+            }
+        }
+        for (String word : SentimentAnalysisService.NEGATIVE_KEYWORDS) {
+            if (tokens.contains(word)) {
+                keywordScore--;
+            }
+        }
+        return keywordScore;
+    }
+
+    private static Sentiment legacySentiment(Mood mood, String content) {
+        int finalScore = mood.getScore() * 4 + legacyKeywordScore(content);
+        if (finalScore >= 35) return Sentiment.VERY_POSITIVE;
+        if (finalScore >= 20) return Sentiment.POSITIVE;
+        if (finalScore > 15) return Sentiment.NEUTRAL;
+        if (finalScore > 8) return Sentiment.NEGATIVE;
+        return Sentiment.VERY_NEGATIVE;
+    }
+}